@@ -0,0 +1,110 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.CartLine;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.StockLedger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 상품 장바구니 주문(OrderService.checkout)을 16 스레드가 동시에 할 때 초당 주문 수
+ * 상품 HOT_ITEMS개 중 CART_SIZE개를 무작위 순서로 담는다 -> 장바구니끼리 상품이 겹치고, 담은 순서도 제각각
+ * (checkout이 상품 id 순서로 재고를 잡으니 deadlock 없이 끝나야 한다)
+ *      * ledger=false : 재고 조건부 update
+ *      * ledger=true  : 메모리 재고 장부(StockLedger)
+ *
+ * 끝나면 상품마다 "처음 재고 - 주문된 수량 = 남은 재고"인지 확인한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class CheckoutBenchmark {
+
+    private static final int INITIAL_STOCK = 1_000_000_000;
+    private static final int HOT_ITEMS = 8;
+    private static final int CART_SIZE = 3;
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private final List<Long> itemIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "jpashop.stock-ledger.enabled=" + ledger,
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("cart-buyer");
+        member.setAddress(new Address("서울", "강남구", "15640"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        ItemService itemService = context.getBean(ItemService.class);
+        itemIds.clear();
+        for (int i = 0; i < HOT_ITEMS; i++) {
+            Book book = new Book();
+            book.setName("CART BOOK " + i);
+            book.setPrice(10000 + i);
+            book.setStockQuantity(INITIAL_STOCK);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            context.getBeanProvider(StockLedger.class).ifAvailable(StockLedger::flush);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            for (Long itemId : itemIds) {
+                long ordered = jdbcTemplate.queryForObject(
+                        "select coalesce(sum(count), 0) from order_item where item_id = ?", Long.class, itemId);
+                long remaining = jdbcTemplate.queryForObject(
+                        "select stock_quantity from item where item_id = ?", Long.class, itemId);
+                if (INITIAL_STOCK - ordered != remaining) {
+                    throw new IllegalStateException("재고가 맞지 않습니다. itemId=" + itemId + ", ordered=" + ordered + ", remaining=" + remaining);
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Long checkout() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<CartLine> cart = new ArrayList<>(CART_SIZE);
+        int start = random.nextInt(HOT_ITEMS);
+        int step = random.nextBoolean() ? 1 : HOT_ITEMS - 1;    // 정순/역순으로 담아서 장바구니끼리 순서가 엇갈리게
+        for (int i = 0; i < CART_SIZE; i++) {
+            cart.add(new CartLine(itemIds.get((start + i * step) % HOT_ITEMS), 1 + random.nextInt(3)));
+        }
+        return orderService.checkout(memberId, cart);
+    }
+}
@@ -0,0 +1,90 @@
+package jpabook.jpashop.bench;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.StockLedger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인기 상품 하나에 주문이 몰릴 때 초당 주문 수 (OrderService.order, 16 스레드 동시)
+ *      * ledger=false : 재고 조건부 update (item row lock 하나에 줄을 선다)
+ *      * ledger=true  : 메모리 재고 장부(StockLedger)에서 차감, DB에는 주기적으로 증감만
+ *
+ * 재고는 측정 중에 떨어지지 않을 만큼 넉넉하게 두고
+ * 끝나면 "처음 재고 - 주문된 수량 = 남은 재고"인지 확인한다 (초과 판매/갱신 분실이 있으면 실패)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class HotItemOrderBenchmark {
+
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    @Param({"false", "true"})
+    private boolean ledger;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private Long memberId;
+    private Long itemId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "jpashop.stock-ledger.enabled=" + ledger,
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        Member member = new Member();
+        member.setName("hot-buyer");
+        member.setAddress(new Address("서울", "강남구", "15640"));
+        memberId = context.getBean(MemberService.class).join(member);
+
+        Book book = new Book();
+        book.setName("HOT BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(INITIAL_STOCK);
+        context.getBean(ItemService.class).saveItem(book);
+        itemId = book.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            context.getBeanProvider(StockLedger.class).ifAvailable(StockLedger::flush);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            long ordered = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(count), 0) from order_item where item_id = ?", Long.class, itemId);
+            long remaining = jdbcTemplate.queryForObject(
+                    "select stock_quantity from item where item_id = ?", Long.class, itemId);
+            if (INITIAL_STOCK - ordered != remaining) {
+                throw new IllegalStateException("재고가 맞지 않습니다. ordered=" + ordered + ", remaining=" + remaining);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Long order() {
+        return orderService.order(memberId, itemId, 1);
+    }
+}
@@ -0,0 +1,190 @@
+package jpabook.jpashop.bench;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.DataGenerator;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 전략별 성능 비교 (API 컨트롤러의 v1 ~ v6가 실제로 호출하는 경로 그대로)
+ *
+ * simple-orders (ToOne만)
+ *      * simpleV1 : 엔티티 조회 + LAZY 강제 초기화
+ *      * simpleV2 : 엔티티 -> DTO 변환, N+1
+ *      * simpleV3 : fetch join
+ *      * simpleV4 : DTO 직접 조회 (OrderSimpleQueryRepository)
+ * orders (컬렉션 포함)
+ *      * ordersV2   : 엔티티 -> DTO 변환, N+1
+ *      * ordersV3   : 컬렉션 fetch join + distinct
+ *      * ordersV3_1 : ToOne fetch join + offset 페이징 + batch fetch
+ *      * ordersV3_2 : ToOne fetch join + 커서 페이징 + batch fetch
+ *      * ordersV5   : DTO 직접 조회 + 컬렉션 IN 쿼리
+ *      * ordersV6   : 플랫 DTO 한 방 + 커서 페이징
+ *
+ * 호출 한 번에 한 페이지만 읽는다 (전체 테이블을 읽으면 주문 수가 커질수록 힙 크기를 재는 벤치마크가 된다)
+ *      * findAllByString을 쓰는 v1, v2는 레포지토리의 setMaxResults대로 최대 1000건
+ *      * 나머지는 데이터 한가운데 위치에서 PAGE_SIZE만큼 (simpleV3, simpleV4, ordersV3, ordersV5는 각 쿼리의 커서 페이징 버전)
+ *
+ * 측정값
+ *      * 처리량 : JMH 기본 결과 (ops/s)
+ *      * 할당량 : gc 프로파일러의 gc.alloc.rate.norm (B/op)
+ *      * 호출당 SQL 수 : Hibernate Statistics의 prepareStatementCount, 벤치마크마다 한 줄씩 statements-report 파일에 남긴다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderFetchBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private Statistics statistics;
+    private final Map<String, Supplier<Object>> strategies = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")   // SQL 로그 찍는 비용이 측정에 섞이지 않게
+                .run();
+
+        new DataGenerator(context.getBean(JdbcTemplate.class), context.getBean(PlatformTransactionManager.class), 1, 1.0, 1000, 42)
+                .generate(DataGenerator.Scale.ofOrders(orders));
+
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        OrderQueryService orderQueryService = context.getBean(OrderQueryService.class);
+        OrderSimpleQueryRepository orderSimpleQueryRepository = context.getBean(OrderSimpleQueryRepository.class);
+        OrderQueryRepository orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        long middle = orders / 2;
+        strategies.put("simpleV1", orderQueryService::simpleOrdersV1);
+        strategies.put("simpleV2", orderQueryService::simpleOrdersV2);
+        strategies.put("simpleV3", () -> orderQueryService.simpleOrdersV3(middle, PAGE_SIZE));
+        strategies.put("simpleV4", () -> readOnly.execute(status -> orderSimpleQueryRepository.findOrderDtos(middle, PAGE_SIZE)));
+        strategies.put("ordersV2", orderQueryService::ordersV2);
+        strategies.put("ordersV3", () -> orderQueryService.ordersV3(middle, PAGE_SIZE));
+        strategies.put("ordersV3_1", () -> orderQueryService.ordersV3_page((int) middle, PAGE_SIZE));
+        strategies.put("ordersV3_2", () -> orderQueryService.ordersV3_cursor(middle, PAGE_SIZE));
+        strategies.put("ordersV5", () -> readOnly.execute(status -> orderQueryRepository.findAllByDto_optimization(middle, PAGE_SIZE)));
+        strategies.put("ordersV6", () -> readOnly.execute(status -> orderQueryRepository.findAllByDto_flat(middle, PAGE_SIZE)));
+
+        recordStatementsPerCall(params);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object simpleV1() {
+        return strategies.get("simpleV1").get();
+    }
+
+    @Benchmark
+    public Object simpleV2() {
+        return strategies.get("simpleV2").get();
+    }
+
+    @Benchmark
+    public Object simpleV3() {
+        return strategies.get("simpleV3").get();
+    }
+
+    @Benchmark
+    public Object simpleV4() {
+        return strategies.get("simpleV4").get();
+    }
+
+    @Benchmark
+    public Object ordersV2() {
+        return strategies.get("ordersV2").get();
+    }
+
+    @Benchmark
+    public Object ordersV3() {
+        return strategies.get("ordersV3").get();
+    }
+
+    @Benchmark
+    public Object ordersV3_1() {
+        return strategies.get("ordersV3_1").get();
+    }
+
+    @Benchmark
+    public Object ordersV3_2() {
+        return strategies.get("ordersV3_2").get();
+    }
+
+    @Benchmark
+    public Object ordersV5() {
+        return strategies.get("ordersV5").get();
+    }
+
+    @Benchmark
+    public Object ordersV6() {
+        return strategies.get("ordersV6").get();
+    }
+
+    /**
+     * 지금 돌릴 벤치마크의 호출당 SQL 수를 남긴다
+     * 첫 호출은 2차 캐시(Member, Item)를 채우니 두 번째 호출(운영 중 상태)을 센다
+     * 형식 : benchmark,orders,statements
+     */
+    private void recordStatementsPerCall(BenchmarkParams params) {
+        String benchmark = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+        Supplier<Object> strategy = strategies.get(benchmark);
+        strategy.get();
+        statistics.clear();
+        strategy.get();
+        long statements = statistics.getPrepareStatementCount();
+
+        String report = System.getProperty("jpashop.bench.statements-report");
+        if (report == null) {
+            System.out.printf("%s orders=%d statements=%d%n", benchmark, orders, statements);
+            return;
+        }
+        try {
+            Path path = Path.of(report);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, benchmark + "," + orders + "," + statements + System.lineSeparator(),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package jpabook.jpashop.bench;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.DataGenerator;
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대량 주문 insert 성능 : JDBC batch(jdbc.batch_size + order_inserts) 켰을 때 / 껐을 때
+ * 한 번 호출에 주문 ORDERS건을 한 트랜잭션으로 저장 (주문 1 + 배송 1 + 주문상품 2 = row 4개)
+ * -> 결과 ops/s = 초당 insert row 수
+ *
+ * id는 두 경우 모두 pooled-lo 시퀀스(allocationSize 1000)라 시퀀스 왕복은 거의 없다
+ * 실행이 끝나면 row 하나당 실제로 DB에 보낸 statement 수를 출력한다 (batch면 1보다 훨씬 작다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderInsertBenchmark {
+
+    private static final int ORDERS = 1000;
+    private static final int ROWS_PER_ORDER = 4;
+    private static final int FLUSH_EVERY = 100;
+
+    @Param({"false", "true"})
+    private boolean batching;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private long[] itemIds;
+    private long memberSeq;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + (batching ? 100 : 0),
+                        "spring.jpa.properties.hibernate.order_inserts=" + batching,
+                        "logging.level.org.hibernate.SQL=warn",
+                        "decorator.datasource.p6spy.enable-logging=false")
+                .run();
+
+        new DataGenerator(context.getBean(JdbcTemplate.class), context.getBean(PlatformTransactionManager.class), 1, 1.0, 1000, 42)
+                .generate(DataGenerator.Scale.of(0.001));
+        itemIds = context.getBean(JdbcTemplate.class)
+                .queryForList("select item_id from item", Long.class).stream().mapToLong(Long::longValue).toArray();
+
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long rows = statistics.getEntityInsertCount();
+        System.out.printf("batching=%s insertedRows=%d statements=%d statementsPerRow=%.3f%n",
+                batching, rows, statistics.getPrepareStatementCount(), (double) statistics.getPrepareStatementCount() / Math.max(1, rows));
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS * ROWS_PER_ORDER)
+    public void bulkOrder() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = new Member();
+            member.setName("bulk" + (++memberSeq));
+            member.setAddress(new Address("서울", "강남구", "15640"));
+            em.persist(member);
+
+            for (int i = 0; i < ORDERS; i++) {
+                Item first = em.getReference(Item.class, itemIds[i % itemIds.length]);
+                Item second = em.getReference(Item.class, itemIds[(i + 1) % itemIds.length]);
+
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                Order order = Order.createOrder(member, delivery,
+                        OrderItem.createReservedOrderItem(first, 10000, 1),
+                        OrderItem.createReservedOrderItem(second, 20000, 2));
+                em.persist(order);
+
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+}
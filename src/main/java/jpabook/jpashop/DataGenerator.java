@@ -0,0 +1,302 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.domain.MemberNameTrigram;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 부하 테스트용 대량 데이터 생성기 (jpashop.datagen.scale-factor 를 지정했을 때만 서버 기동 시 실행)
+ * InitDb는 em.persist로 한 건씩 넣어서 몇 건 수준만 가능하다
+ * -> JDBC batch insert로 테이블에 바로 넣고, batch 단위로 커밋해서 트랜잭션/메모리가 계속 커지지 않게 한다
+ *
+ * scale factor 1 기준
+ *      * 회원 10만명, 상품 1만개
+ *      * 주문 100만건 (배송 100만건), 주문상품 평균 2.5개
+ *      * 상품 인기도는 Zipf 분포 : 상위 몇 개 상품에 주문이 몰린다
+ *
+ * id는 각 테이블의 max(id) + 1 부터 쓰니 기존 데이터가 있어도 된다
+ * 다 넣고 나면 시퀀스를 max(id) 뒤로 옮겨서 이후 em.persist가 id를 겹치지 않게 한다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.datagen.scale-factor")
+public class DataGenerator implements ApplicationRunner {
+
+    private static final int MAX_ITEMS_PER_ORDER = 4;
+
+    // 테이블 -> (id 컬럼, 시퀀스)
+    private static final Map<String, String[]> SEQUENCES = Map.of(
+            "member", new String[]{"member_id", "member_seq"},
+            "item", new String[]{"item_id", "item_seq"},
+            "delivery", new String[]{"delivery_id", "delivery_seq"},
+            "orders", new String[]{"order_id", "orders_seq"},
+            "order_item", new String[]{"order_item_id", "order_item_seq"});
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double scaleFactor;
+    private final double zipfExponent;
+    private final int batchSize;
+    private final long seed;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         @Value("${jpashop.datagen.scale-factor:1}") double scaleFactor,
+                         @Value("${jpashop.datagen.zipf-exponent:1.0}") double zipfExponent,
+                         @Value("${jpashop.datagen.batch-size:1000}") int batchSize,
+                         @Value("${jpashop.datagen.seed:42}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scaleFactor = scaleFactor;
+        this.zipfExponent = zipfExponent;
+        this.batchSize = batchSize;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate(Scale.of(scaleFactor));
+    }
+
+    public void generate(Scale scale) {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long firstMemberId = nextId("member", "member_id");
+        long firstItemId = nextId("item", "item_id");
+        long firstDeliveryId = nextId("delivery", "delivery_id");
+        long firstOrderId = nextId("orders", "order_id");
+        long firstOrderItemId = nextId("order_item", "order_item_id");
+
+        // 회원 : 이름은 uk_member_name 때문에 겹치면 안된다 -> id를 붙인다
+        long rows = insert("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)",
+                scale.getMembers(), i -> {
+                    long id = firstMemberId + i;
+                    return new Object[]{id, "user" + id, city(random), "street" + random.nextInt(1000), zipcode(random)};
+                });
+        // 회원 이름 trigram (주문 검색의 회원 이름 부분 검색용) : 이름이 "user" + id 라서 다시 만들 수 있다
+        rows += insertEach("insert into member_name_trigram (gram, member_id) values (?, ?)",
+                scale.getMembers(), (i, batch) -> {
+                    long id = firstMemberId + i;
+                    for (String gram : MemberNameTrigram.of("user" + id)) {
+                        batch.add(new Object[]{gram, id});
+                    }
+                });
+
+        // 상품 : 가격은 다음 주문상품에서 다시 쓰니 메모리에 들고 있는다
+        int[] prices = new int[scale.getItems()];
+        rows += insert("insert into item (item_id, dtype, name, price, stock_quantity, author, isbn) values (?, 'B', ?, ?, ?, ?, ?)",
+                scale.getItems(), i -> {
+                    long id = firstItemId + i;
+                    prices[(int) i] = (5 + random.nextInt(46)) * 1000;
+                    return new Object[]{id, "BOOK" + id, prices[(int) i], 1_000_000, "author" + random.nextInt(10_000), "isbn" + id};
+                });
+
+        // 배송 + 주문 : 주문 한 건에 배송 한 건, 주문일은 최근 1년에 흩어준다
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long yearMillis = 365L * 24 * 60 * 60 * 1000;
+        rows += insert("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)",
+                scale.getOrders(), i -> new Object[]{firstDeliveryId + i, city(random), "street" + random.nextInt(1000), zipcode(random),
+                        random.nextInt(10) < 7 ? "COMP" : "READY"});
+        // 주문상품 : 주문마다 1 ~ 4개, 상품은 Zipf 분포로 뽑는다
+        // 주문의 total_price, item_count를 먼저 채워야 하니 같은 seed의 난수로 주문상품을 두 번(주문 insert, 주문상품 insert) 똑같이 만든다
+        ZipfSampler sampler = new ZipfSampler(scale.getItems(), zipfExponent);
+        OrderLines orderLinesForOrders = new OrderLines(new SplittableRandom(seed + 1), sampler);
+        rows += insert("insert into orders (order_id, member_id, delivery_id, order_date, status, total_price, item_count) values (?, ?, ?, ?, ?, ?, ?)",
+                scale.getOrders(), i -> {
+                    orderLinesForOrders.next();
+                    return new Object[]{firstOrderId + i, firstMemberId + random.nextLong(scale.getMembers()), firstDeliveryId + i,
+                            new Timestamp(now.getTime() - random.nextLong(yearMillis)), random.nextInt(10) == 0 ? "CANCEL" : "ORDER",
+                            orderLinesForOrders.totalPrice(prices), orderLinesForOrders.size};
+                });
+
+        OrderLines orderLinesForItems = new OrderLines(new SplittableRandom(seed + 1), sampler);
+        long[] orderItemId = {firstOrderItemId};
+        rows += insertEach("insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)",
+                scale.getOrders(), (i, batch) -> {
+                    orderLinesForItems.next();
+                    for (int line = 0; line < orderLinesForItems.size; line++) {
+                        int item = orderLinesForItems.items[line];
+                        batch.add(new Object[]{orderItemId[0]++, firstOrderId + i, firstItemId + item, prices[item], orderLinesForItems.counts[line]});
+                    }
+                });
+
+        restartSequences();
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("datagen done. members={} items={} orders={} rows={} seconds={} rowsPerSecond={}",
+                scale.getMembers(), scale.getItems(), scale.getOrders(), rows, String.format("%.1f", seconds), (long) (rows / seconds));
+    }
+
+    private long insert(String sql, long count, RowFactory rowFactory) {
+        return insertEach(sql, count, (i, batch) -> batch.add(rowFactory.row(i)));
+    }
+
+    /**
+     * batchSize 행마다 batch update + 커밋
+     * (영속성 컨텍스트를 안 쓰니 flush/clear 대신 커밋 단위로 끊어준다)
+     */
+    private long insertEach(String sql, long count, RowsFactory rowsFactory) {
+        List<Object[]> batch = new ArrayList<>(batchSize + MAX_ITEMS_PER_ORDER);
+        long rows = 0;
+        for (long i = 0; i < count; i++) {
+            rowsFactory.rows(i, batch);
+            if (batch.size() >= batchSize) {
+                rows += flush(sql, batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            rows += flush(sql, batch);
+        }
+        return rows;
+    }
+
+    private int flush(String sql, List<Object[]> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private long nextId(String table, String idColumn) {
+        Long max = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    /**
+     * 시퀀스를 max(id) + increment + 1 로 재시작
+     * pooled-lo는 시퀀스 값부터, pooled는 시퀀스 값에서 increment만큼 앞의 id부터 쓰니 어느 쪽이든 겹치지 않게 여유를 둔다
+     */
+    private void restartSequences() {
+        SEQUENCES.forEach((table, idAndSequence) -> {
+            List<Long> increments = jdbcTemplate.queryForList(
+                    "select increment from information_schema.sequences where lower(sequence_name) = ?", Long.class, idAndSequence[1]);
+            if (increments.isEmpty()) {
+                return;
+            }
+            long max = nextId(table, idAndSequence[0]) - 1;
+            jdbcTemplate.execute("alter sequence " + idAndSequence[1] + " restart with " + (max + increments.get(0) + 1));
+        });
+    }
+
+    private static String city(SplittableRandom random) {
+        String[] cities = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "수원"};
+        return cities[random.nextInt(cities.length)];
+    }
+
+    private static String zipcode(SplittableRandom random) {
+        return String.valueOf(10000 + random.nextInt(90000));
+    }
+
+    @FunctionalInterface
+    interface RowFactory {
+        Object[] row(long index);
+    }
+
+    @FunctionalInterface
+    interface RowsFactory {
+        void rows(long index, List<Object[]> batch);
+    }
+
+    /**
+     * 생성할 데이터 양
+     */
+    @Getter
+    public static class Scale {
+        private final int members;
+        private final int items;
+        private final long orders;
+
+        private Scale(int members, int items, long orders) {
+            this.members = members;
+            this.items = items;
+            this.orders = orders;
+        }
+
+        public static Scale of(double scaleFactor) {
+            return new Scale(
+                    (int) Math.max(1, 100_000 * scaleFactor),
+                    (int) Math.max(1, 10_000 * scaleFactor),
+                    (long) Math.max(1, 1_000_000 * scaleFactor));
+        }
+
+        /**
+         * 주문 수를 기준으로 scale factor를 맞춘다 (벤치마크에서 주문 1000건, 10만건 ...)
+         */
+        public static Scale ofOrders(long orders) {
+            return of(orders / 1_000_000.0);
+        }
+    }
+
+    /**
+     * 주문 한 건의 주문상품들 (상품 index, 수량)
+     */
+    static final class OrderLines {
+        private final SplittableRandom random;
+        private final ZipfSampler sampler;
+        private final int[] items = new int[MAX_ITEMS_PER_ORDER];
+        private final int[] counts = new int[MAX_ITEMS_PER_ORDER];
+        private int size;
+
+        OrderLines(SplittableRandom random, ZipfSampler sampler) {
+            this.random = random;
+            this.sampler = sampler;
+        }
+
+        void next() {
+            size = 1 + random.nextInt(MAX_ITEMS_PER_ORDER);
+            for (int line = 0; line < size; line++) {
+                items[line] = sampler.sample(random);
+                counts[line] = 1 + random.nextInt(3);
+            }
+        }
+
+        int totalPrice(int[] prices) {
+            int total = 0;
+            for (int line = 0; line < size; line++) {
+                total += prices[items[line]] * counts[line];
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Zipf 분포 샘플러 : k번째 상품이 뽑힐 확률 ∝ 1 / k^s
+     * 누적 분포(cdf)를 미리 만들어두고 이분 탐색
+     */
+    static final class ZipfSampler {
+        private final double[] cdf;
+
+        ZipfSampler(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cdf[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cdf[k] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
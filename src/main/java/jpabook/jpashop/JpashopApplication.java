@@ -4,8 +4,10 @@ import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling	// 판매 집계 flush (SalesRollupService), 재고 장부 flush (StockLedger)
 public class JpashopApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,80 @@
+package jpabook.jpashop.api;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jpabook.jpashop.repository.category.CategoryItemCount;
+import jpabook.jpashop.repository.category.CategoryItemRow;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final CategoryService categoryService;
+
+    @PostMapping("/api/categories")
+    public CreateCategoryResponse createCategory(@RequestBody @Valid CreateCategoryRequest request) {
+        Long id = categoryService.createCategory(request.getName(), request.getParentId());
+        return new CreateCategoryResponse(id);
+    }
+
+    /**
+     * 하위 트리째로 이동 (parentId 없으면 최상위로)
+     */
+    @PutMapping("/api/categories/{id}/parent")
+    public void moveCategory(@PathVariable("id") Long id,
+                             @RequestParam(value = "parentId", required = false) Long parentId) {
+        categoryService.moveCategory(id, parentId);
+    }
+
+    @PostMapping("/api/categories/{id}/items/{itemId}")
+    public void addItem(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+        categoryService.addItem(id, itemId);
+    }
+
+    /**
+     * 카테고리 하위 트리 전체 상품 (커서 페이징)
+     * 첫 페이지에는 하위 카테고리별 상품 수도 같이 내려준다
+     */
+    @GetMapping("/api/categories/{id}/items")
+    public SubtreeItemsResult subtreeItems(@PathVariable("id") Long id,
+                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                           @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Long lastItemId = Cursor.decode(cursor);
+        List<CategoryItemRow> items = categoryService.findSubtreeItems(id, lastItemId, limit);
+        List<CategoryItemCount> categories = lastItemId == null ? categoryService.countSubtreeItems(id) : null;
+
+        String nextCursor = (items.isEmpty() || items.size() < limit) ? null : Cursor.encode(items.get(items.size() - 1).getItemId());
+        return new SubtreeItemsResult(categories, items, nextCursor);
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class SubtreeItemsResult {
+        private List<CategoryItemCount> categories;
+        private List<CategoryItemRow> items;
+        private String nextCursor;
+    }
+}
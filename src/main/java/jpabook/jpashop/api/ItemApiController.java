@@ -0,0 +1,44 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.SelectOption;
+import jpabook.jpashop.service.ItemSearchIndex;
+import jpabook.jpashop.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int MAX_OFFSET = 10000;
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final ItemService itemService;
+
+    /**
+     * 상품 검색 : 상품명, 저자/ISBN(Book), 아티스트(Album), 감독/배우(Movie)
+     * 메모리 색인(ItemSearchIndex)에서 점수 순으로 offset부터 limit 개 (DB 안 거침)
+     */
+    @GetMapping("/api/items/search")
+    public ItemSearchIndex.Page search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return itemService.searchItems(query, Math.max(0, Math.min(offset, MAX_OFFSET)), Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    /**
+     * 상품명 앞글자 자동완성 (주문 화면) : 이름 순 limit 개
+     */
+    @GetMapping("/api/items/typeahead")
+    public List<SelectOption> typeahead(
+            @RequestParam(value = "q", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return itemService.suggestByName(prefix.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+}
@@ -3,20 +3,28 @@ package jpabook.jpashop.api;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.SelectOption;
+import jpabook.jpashop.repository.member.MemberField;
+import jpabook.jpashop.repository.member.MemberRow;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 // data 자체를 xml이나 json으로 바로 보내자
 @RestController // = @Controller @ResponseBody
 @RequiredArgsConstructor
 public class MemberApiController {
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final MemberService memberService;
 
     /**
@@ -43,6 +51,44 @@ public class MemberApiController {
         // -> 왜 이렇게 ? list 로 바로 넘기면 json 배열 타입으로 나가서 유연성이 확떨어짐 (json 배열 타입은 데이터를 더 이상 추가할 수가 없음)
     }
 
+    /**
+     * 회원 이름 앞글자 자동완성 (주문 화면) : 이름 순 limit 명
+     */
+    @GetMapping("/api/members/typeahead")
+    public List<SelectOption> typeahead(
+            @RequestParam(value = "q", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return memberService.suggestByName(prefix.trim(), Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    /**
+     * v2는 전체 회원을 한번에 내려준다 (회원 수만큼 엔티티 생성 + 응답 크기)
+     * v3 : id 커서로 limit 명씩, fields로 고른 컬럼만 조회 (예: fields=name)
+     * count는 count(*) 대신 캐시된 추정치라 정확하지 않을 수 있다
+     */
+    @GetMapping("/api/v3/members")
+    public MemberPageResult memberV3(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+        int pageSize = Math.max(1, Math.min(limit, 1000));
+        List<MemberRow> members = memberService.findMemberPage(Cursor.decode(cursor), pageSize, parseFields(fields));
+
+        String nextCursor = (members.isEmpty() || members.size() < pageSize) ? null : Cursor.encode(members.get(members.size() - 1).getId());
+        return new MemberPageResult(memberService.estimateMemberCount(), members, nextCursor);
+    }
+
+    /**
+     * 모르는 필드 이름은 서버 오류(500)가 아니라 잘못된 요청(400)
+     */
+    private static Set<MemberField> parseFields(String fields) {
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T> {
@@ -50,6 +96,14 @@ public class MemberApiController {
         private T data;
     }
 
+    @Data
+    @AllArgsConstructor
+    static class MemberPageResult {
+        private long count;     // 전체 회원 수 추정치
+        private List<MemberRow> data;
+        private String nextCursor;
+    }
+
     /**
      * api 스펙과 DTO가 1대1로 매핑 -> DTO만 보고 api 스펙 파악 가능
      */
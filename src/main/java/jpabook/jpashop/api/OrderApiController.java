@@ -1,120 +1,175 @@
 package jpabook.jpashop.api;
 
-import jpabook.jpashop.domain.Address;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.OrderItem;
-import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
-import jpabook.jpashop.repository.OrderSearch;
-import lombok.Getter;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.CartLine;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderQueryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
-    private final OrderRepository orderRepository;
 
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_EXPORT_CHUNK_SIZE = 1000;
 
+    private final OrderQueryService orderQueryService;
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+
+    /**
+     * OSIV를 꺼도 동작하도록 엔티티 조회 + DTO 변환은 전부 OrderQueryService 트랜잭션 안에서 끝낸다
+     */
     @GetMapping("/api/v1/orders")
     public List<Order> orderV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
-
-        for (Order order : all) {
-            order.getMember().getName();
-            order.getDelivery().getAddress();
-//            for (OrderItem orderItem: order.getOrderItems()) {
-//                orderItem.getItem().getName();
-//            }
-            order.getOrderItems().stream().forEach(orderItem -> orderItem.getItem().getName());
-        }
-
-        return all;
+        return orderQueryService.ordersV1();
     }
 
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-        List<OrderDto> collect = orders.stream()
-                .map(order -> new OrderDto(order))
-                .collect(Collectors.toList());
-
-        return collect;
+        return orderQueryService.ordersV2();
     }
 
-    @Getter
-    static class OrderDto {
-        private Long orderId;
-        private String name;
-        private LocalDateTime orderDate;
-        private OrderStatus orderStatus;
-        private Address address;
-        // OrderDto 안에 entity(OrderItem) 있으면 안된다 -> OrderItem entity 정보들이 외부로 노출된다
-        private List<OrderItemDto> orderItems;
-        // OrderItem -> OrderItemDto로 또 감싸자
-
-        public OrderDto(Order order) {
-            orderId = order.getId();
-            name = order.getMember().getName();
-            orderDate = order.getOrderDate();
-            orderStatus = order.getStatus();
-            address = order.getDelivery().getAddress();
-            orderItems = order.getOrderItems().stream()
-                    .map(orderItem -> new OrderItemDto(orderItem))
-                    .collect(Collectors.toList());
-        }
+    /**
+     * 전체 주문을 NDJSON(한 줄에 주문 하나)으로 내려준다
+     * v2처럼 List<OrderDto>를 다 만들어서 한번에 직렬화하지 않고
+     * DB 커서에서 chunk 단위로 읽어서 바로 response output stream에 써버리니 주문이 몇 건이든 힙 사용량이 일정하다
+     * chunkSize는 1 ~ MAX_EXPORT_CHUNK_SIZE (0이면 chunk가 안 끝나서 전체가 영속성 컨텍스트에 쌓인다)
+     */
+    @GetMapping("/api/v2/orders/export")
+    public ResponseEntity<StreamingResponseBody> ordersV2_export(
+            @RequestParam(value = "chunkSize", defaultValue = "100") int chunkSize) {
+        int chunk = Math.max(1, Math.min(chunkSize, MAX_EXPORT_CHUNK_SIZE));
+        StreamingResponseBody body = out -> {
+            orderService.exportOrders(chunk, orders -> {
+                try {
+                    for (Order order : orders) {
+                        out.write(objectMapper.writeValueAsBytes(new OrderDto(order)));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);  // 클라이언트가 끊으면 여기서 멈추고 트랜잭션도 정리된다
+                }
+            });
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 
+    @GetMapping("/api/v3/orders")
+    public List<OrderDto> ordersV3() {
+        return orderQueryService.ordersV3();
     }
 
-    @Getter
-    static class OrderItemDto {
-        // 요구사항에 맞게 원하는 데이터만 보여주자 (entity 내용을 다 보여주지 말고)
-        private String itemName;
-        private int orderPrice;
-        private int count;
+    @GetMapping("/api/v3.1/orders")
+    public List<OrderDto> ordersV3_page(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        // 1. Order를 기준으로 ToOne 관계는 한번에 fetch join으로 가져오기 (OrderItems는 default_batch_fetch_size로 IN 쿼리)
+        return orderQueryService.ordersV3_page(Math.max(0, offset), clampLimit(limit));
+    }
 
-        public OrderItemDto(OrderItem orderItem) {
-            itemName = orderItem.getItem().getName();
-            orderPrice = orderItem.getOrderPrice();
-            count = orderItem.getCount();
-        }
+    /**
+     * v3.1의 offset 대신 커서로 페이징
+     * 응답의 nextCursor를 다음 요청의 cursor로 그대로 넘기면 된다 (마지막 페이지면 null)
+     */
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        limit = clampLimit(limit);
+        List<OrderDto> orders = orderQueryService.ordersV3_cursor(Cursor.decode(cursor), limit);
 
+        String nextCursor = (orders.isEmpty() || orders.size() < limit) ? null : Cursor.encode(orders.get(orders.size() - 1).getOrderId());
+        return new CursorResult<>(orders, nextCursor);
+    }
 
+    /**
+     * DTO로 바로 조회 + 컬렉션은 IN 쿼리 한번으로 조회 (쿼리 총 2번)
+     */
+    @GetMapping("/api/v5/orders")
+    public List<OrderQueryDto> ordersV5() {
+        return orderQueryRepository.findAllByDto_optimization();
     }
 
-    @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
+    /**
+     * 플랫 데이터로 한 번에 조회(페이지 주문 id를 고르는 derived table까지 쿼리 1번) 후 메모리에서 주문별로 다시 묶기
+     * 응답 모양은 v5와 같고, 페이징은 v3.2처럼 커서(order_id)로
+     */
+    @GetMapping("/api/v6/orders")
+    public CursorResult<List<OrderQueryDto>> ordersV6(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        limit = clampLimit(limit);
+        List<OrderQueryDto> orders = orderQueryRepository.findAllByDto_flat(Cursor.decode(cursor), limit);
 
-        for (Order order: orders) {
-            System.out.println("order ref = " + order + " id = " + order.getId());
-        }
+        String nextCursor = (orders.isEmpty() || orders.size() < limit) ? null : Cursor.encode(orders.get(orders.size() - 1).getOrderId());
+        return new CursorResult<>(orders, nextCursor);
+    }
 
-        List<OrderDto> collect = orders.stream()
-                .map(order -> new OrderDto(order))
-                .collect(Collectors.toList());
+    /**
+     * 0 이하면 setMaxResults에서 예외, 너무 크면 한번에 다 읽으니 1 ~ MAX_LIMIT
+     */
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
 
-        return collect;
+    /**
+     * 장바구니 주문 (상품 여러 개를 주문 1건으로)
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse checkout(@RequestBody @Valid CreateOrderRequest request) {
+        Long orderId = orderService.checkout(request.getMemberId(), request.getLines());
+        return new CreateOrderResponse(orderId);
     }
 
-    @GetMapping("/api/v3.1/orders")
-    public List<OrderDto> ordersV3_page(
-            @RequestParam(value = "offset", defaultValue = "0") int offset,
-            @RequestParam(value = "limit", defaultValue = "100") int limit)
-    {
-        // 1. Order를 기준으로 ToOne 관계는 한번에 fetch join으로 가져오기 (아직 OrderItems는 해결 X)
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+    @Data
+    static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty
+        private List<CartLine> lines;
+    }
 
-        List<OrderDto> collect = orders.stream()
-                .map(order -> new OrderDto(order))
-                .collect(Collectors.toList());
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
 
-        return collect;
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
     }
 }
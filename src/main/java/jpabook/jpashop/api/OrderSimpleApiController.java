@@ -1,21 +1,16 @@
 package jpabook.jpashop.api;
 
 
-import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
-import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * XToOne(ManyToOne, OneToOne) 관계에서 성능 최적화 하는 방법!!! ( != 컬렉션인 XToMany 가 아닌 것들 조회 )
@@ -26,25 +21,15 @@ import java.util.stream.Collectors;
 @RestController
 @RequiredArgsConstructor
 public class OrderSimpleApiController {
-    private final OrderRepository orderRepository;
+    private final OrderQueryService orderQueryService;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());   // 검색 조건이 없으니께 다 들고 온다
-//
-        // 강제 지연로딩 초기화하기 ( hibernate5Module.configure(Hibernate5JakartaModule.Feature.FORCE_LAZY_LOADING, true); 이거 주석처리)
-        for (Order order : all) {
-            // order.getMember()까지는 프록시 객체지만
-            // .getName() 하는 순간 강제 초기화된다 -> member에 쿼리를 날려서 JPA가 데이터 다 끌고옴
-            order.getMember().getName();    // LAZY 강제 초기화
-            order.getDelivery().getAddress();   // LAZY 강제 초기화
-            // 결과
-            // 이러면 초기화 안된 OrderItems는 null로 나오고
-            // 초기화한 Member와 Delivery는 제대로 값이 나온다
-        }
-
-        return all;
+        // 검색 조건 없이 다 들고 와서 member, delivery만 강제 초기화 (OSIV OFF라 초기화는 서비스 트랜잭션 안에서)
+        // order.getMember()까지는 프록시 객체지만 .getName() 하는 순간 강제 초기화된다 -> member에 쿼리를 날려서 JPA가 데이터 다 끌고옴
+        // 결과 : 초기화 안된 OrderItems는 null로 나오고, 초기화한 Member와 Delivery는 제대로 값이 나온다
+        return orderQueryService.simpleOrdersV1();
     }
     /** 문제 1 : 순환 참조 발생
      * Order -> Member로 간다
@@ -88,22 +73,12 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v2/simple-orders")
     public Result ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-
-        List<SimpleOrderDto> result = orders.stream()
-                .map(o -> new SimpleOrderDto(o)) // map은 x -> y로 바꾸는 것(여기선 Order를 SimpleOrderDto로 변환)
-                .collect(Collectors.toList());  // 그걸 list로 변환
-        return new Result(result);
+        return new Result(orderQueryService.simpleOrdersV2());
     }
 
     @GetMapping("/api/v3/simple-orders")
     public Result ordersV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
-        List<SimpleOrderDto> result = orders.stream()
-                .map(order -> new SimpleOrderDto(order))
-                .collect(Collectors.toList());
-
-        return new Result(result);
+        return new Result(orderQueryService.simpleOrdersV3());
     }
 
     /**
@@ -115,24 +90,6 @@ public class OrderSimpleApiController {
         return new Result(orderSimpleQueryRepository.findOrderDtos());
     }
 
-    @Data
-    static class SimpleOrderDto {
-        private Long orderId;
-        private String name;
-        private LocalDateTime orderDate;
-        private OrderStatus orderStatus;
-        private Address address;
-
-        public SimpleOrderDto(Order order) {
-            orderId = order.getId();
-            // LAZY 초기화 : getMember()에서 memberId로 영속성 컨텍스트를 뒤짐 -> 없으면 DB에 쿼리
-            name = order.getMember().getName();
-            orderDate = getOrderDate();
-            orderStatus = order.getStatus();
-            address = order.getDelivery().getAddress();     // LAZY 초기화
-        }
-    }
-
     @Data
     @AllArgsConstructor
     static class Result<T> {
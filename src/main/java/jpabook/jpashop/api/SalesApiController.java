@@ -0,0 +1,77 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.sales.SalesDailyRow;
+import jpabook.jpashop.repository.sales.SalesItemRow;
+import jpabook.jpashop.service.SalesRollupService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 판매 대시보드 API : 전부 sales_daily_rollup(미리 집계된 row)만 읽는다
+ */
+@RestController
+@RequiredArgsConstructor
+public class SalesApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * 일별 매출/판매수량/취소율 (itemId 없으면 전체 상품)
+     */
+    @GetMapping("/api/sales/daily")
+    public Result<List<SalesDailyRow>> daily(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "itemId", required = false) Long itemId) {
+        List<SalesDailyRow> rows = salesRollupService.findDaily(from, to, itemId);
+        return new Result<>(rows.size(), rows);
+    }
+
+    /**
+     * 기간 내 순매출 상위 상품 (limit은 1 ~ MAX_LIMIT)
+     */
+    @GetMapping("/api/sales/items")
+    public Result<List<SalesItemRow>> topItems(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<SalesItemRow> rows = salesRollupService.findTopItems(from, to, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return new Result<>(rows.size(), rows);
+    }
+
+    /**
+     * 기간 집계 다시 만들기 (집계 도입 전 주문, 대량 생성 데이터)
+     */
+    @PostMapping("/api/sales/backfill")
+    public BackfillResult backfill(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return new BackfillResult(from, to, salesRollupService.backfill(from, to));
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private int count;
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BackfillResult {
+        private LocalDate from;
+        private LocalDate to;
+        private int rows;
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.monitoring.JdbcMonitoringStats;
+import jpabook.jpashop.monitoring.NPlusOneDetector;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 운영 중 성능 지표 확인용 API
+ */
+@RestController
+@RequiredArgsConstructor
+public class StatsApiController {
+    private final EntityManagerFactory emf;
+    private final JdbcMonitoringStats jdbcMonitoringStats;
+    private final NPlusOneDetector nPlusOneDetector;
+
+    /**
+     * 2차 캐시 region별 hit/miss (jpashop.hibernate-statistics=true 로 띄웠을 때만 집계된다, 기본은 꺼져 있음)
+     */
+    @GetMapping("/api/stats/cache")
+    public List<CacheRegionStats> cacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(region -> CacheRegionStats.of(region, statistics.getDomainDataRegionStatistics(region)))
+                .toList();
+    }
+
+    /**
+     * 핸들러별로 요청 하나가 DB 커넥션을 얼마나 오래 들고 있었는지
+     * (커넥션 풀 크기 / 평균 hold time = 동시에 처리할 수 있는 요청 수의 대략적인 상한)
+     */
+    @GetMapping("/api/stats/connections")
+    public List<JdbcMonitoringStats.ConnectionHoldSnapshot> connectionStats() {
+        return jdbcMonitoringStats.connectionHoldSnapshot();
+    }
+
+    /**
+     * 핸들러별 N+1 의심 요청 횟수
+     */
+    @GetMapping("/api/stats/n-plus-one")
+    public Map<String, Long> nPlusOneStats() {
+        return nPlusOneDetector.snapshot();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheRegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCountInMemory;
+        private double hitRatio;
+
+        static CacheRegionStats of(String region, CacheRegionStatistics stats) {
+            long hit = stats.getHitCount();
+            long miss = stats.getMissCount();
+            double ratio = (hit + miss) == 0 ? 0 : (double) hit / (hit + miss);
+            return new CacheRegionStats(region, hit, miss, stats.getPutCount(), stats.getElementCountInMemory(), ratio);
+        }
+    }
+}
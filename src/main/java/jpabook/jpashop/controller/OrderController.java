@@ -1,14 +1,12 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.repository.order.query.OrderListRow;
+import jpabook.jpashop.service.OrderIngestionPipeline;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -20,19 +18,15 @@ import java.util.List;
 @RequiredArgsConstructor
 @Slf4j
 public class OrderController {
-    private final MemberService memberService;
     private final OrderService orderService;
-    private final ItemService itemService;
+    private final ObjectProvider<OrderIngestionPipeline> orderIngestionPipeline;   // 설정으로 켰을 때만 존재
 
+    /**
+     * 회원, 상품 전체를 selectbox에 뿌리면 회원 수십만 명이면 화면 하나에 수 초, 수 MB
+     * -> 폼은 빈 채로 내려주고, 화면에서 입력한 앞글자로 /api/members/typeahead, /api/items/typeahead 를 호출해서 후보만 받아온다
+     */
     @GetMapping("/order")
-    public String createForm(Model model) {
-        // 화면에서 selectbox로 멤버와 아이템들을 보여줘서 선택할 수 있도록 하기 위해서 폼 보여줄 때 쫙 가져온다
-        List<Member> findMembers = memberService.findMembers();
-        List<Item> findItems = itemService.findItems();
-
-        model.addAttribute("members", findMembers);
-        model.addAttribute("items", findItems);
-
+    public String createForm() {
         return "order/orderForm";
     }
 
@@ -47,7 +41,12 @@ public class OrderController {
          * 즉, 바깥에서 entity를 찾아서 넘기는 것보단 안에서 처리하는게 깔끔
          * 밖에서 entity 찾아서 넘기면 얘는 더이상 영속성 컨텍스트 안에 있는게 아니라서 order 내부에서 이 값을 바꾸려고 하면 귀찮아진다
          */
-        orderService.order(memberId, itemId, count);
+        OrderIngestionPipeline pipeline = orderIngestionPipeline.getIfAvailable();
+        if (pipeline != null) {
+            pipeline.order(memberId, itemId, count);    // 다른 주문들과 묶어서 한 번에 커밋될 때까지 기다린다
+        } else {
+            orderService.order(memberId, itemId, count);
+        }
         return "redirect:/orders";
 
     }
@@ -59,8 +58,10 @@ public class OrderController {
 
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
+        // 엔티티를 넘기면 화면 렌더링 중에 LAZY 로딩이 터지니 화면에 필요한 컬럼만 조회한 row를 넘긴다
+        List<OrderListRow> orders = orderService.findOrderListRows(orderSearch);
         model.addAttribute("orders", orders);
+        model.addAttribute("totalCount", orderService.countOrders(orderSearch));
 
         return "order/orderList";
     }
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +14,8 @@ import static jakarta.persistence.FetchType.LAZY;
 
 @Entity
 @Getter @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category {
 
     @Id @GeneratedValue
@@ -23,7 +27,8 @@ public class Category {
     @ManyToMany
     @JoinTable(name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id"))  // RDB는 다대다 관계를 위해서 중간 테이블 필수
+            inverseJoinColumns = @JoinColumn(name = "item_id"),  // RDB는 다대다 관계를 위해서 중간 테이블 필수
+            indexes = @Index(name = "idx_category_item_category", columnList = "category_id, item_id"))  // 하위 트리 상품 조회용
     private List<Item> items = new ArrayList<>();
 
     @ManyToOne(fetch = LAZY)  // 부모는 많은 자식(나)을 가질 수 있어서
@@ -34,6 +39,7 @@ public class Category {
     private List<Category> child = new ArrayList<>();
 
     // ==연관관계 편의 메서드== //
+    // 객체 관계만 맞춘다 -> 클로저 테이블(CategoryClosure)은 CategoryService.createCategory / moveCategory에서
     public void addChildCategory(Category child) {
         this.child.add(child);
         child.setParent(this);
@@ -0,0 +1,36 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 카테고리 클로저 테이블 : 조상 -> 자손 경로를 전부 한 row씩 저장 (자기 자신 포함, depth 0)
+ * parent/child만으로는 하위 트리 전체를 찾으려면 노드마다 쿼리를 날리며 재귀로 내려가야 한다
+ * -> ancestor_id = 루트 한 조건으로 하위 트리 전체 카테고리가 인덱스(PK) 한번에 나온다
+ *
+ * 예) 도서 > IT > JPA
+ *      (도서, 도서, 0) (도서, IT, 1) (도서, JPA, 2)
+ *      (IT, IT, 0) (IT, JPA, 1)
+ *      (JPA, JPA, 0)
+ * 카테고리를 만들거나 옮길 때 CategoryService가 같이 맞춘다
+ */
+@Entity
+@Getter
+@IdClass(CategoryClosureId.class)
+@Table(name = "category_closure",
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, ancestor_id"))   // 조상 찾기(카테고리 이동)용
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    private int depth;
+}
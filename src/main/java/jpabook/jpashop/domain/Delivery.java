@@ -10,7 +10,9 @@ import static jakarta.persistence.FetchType.LAZY;
 @Entity
 @Getter @Setter
 public class Delivery {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_seq")
+    @SequenceGenerator(name = "delivery_seq", sequenceName = "delivery_seq", allocationSize = 1000)
     @Column(name = "delivery_id")
     private Long id;
 
@@ -0,0 +1,53 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 회원 이름 trigram 색인 (이름의 연속된 3글자 조각 -> 회원)
+ * like '%kim%' 는 앞이 와일드카드라 인덱스를 못 타고 member 전체를 훑는다
+ * -> 검색어의 trigram을 모두 가진 회원만 PK(gram, member_id) 범위 검색으로 먼저 좁힌다
+ *
+ * 조각을 다 가졌다고 이름에 검색어가 연속으로 들어있는 건 아니니 (후보일 뿐) 최종 like 조건은 그대로 건다
+ * 대소문자는 구분하지 않고 소문자로 저장한다
+ * 회원 가입/이름 수정 트랜잭션 안에서 같이 바꾼다 (MemberNameTrigramRepository.replace)
+ */
+@Entity
+@Getter
+@IdClass(MemberNameTrigramId.class)
+@Table(name = "member_name_trigram",
+        indexes = @Index(name = "idx_member_name_trigram_member", columnList = "member_id"))  // 이름 수정 시 기존 조각 지우기용
+@NoArgsConstructor(access = AccessLevel.PROTECTED)   // 직접 만들지 않는다 (JDBC batch insert로만)
+public class MemberNameTrigram {
+
+    public static final int N = 3;
+
+    @Id
+    @Column(length = N)
+    private String gram;
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    /**
+     * "Kimchi" -> [kim, imc, mch, chi] (중복 제거, 3글자보다 짧으면 없음)
+     */
+    public static Set<String> of(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + N <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + N));
+        }
+        return grams;
+    }
+}
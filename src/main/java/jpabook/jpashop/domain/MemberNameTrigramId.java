@@ -0,0 +1,20 @@
+package jpabook.jpashop.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * MemberNameTrigram 복합 키 (gram, member_id)
+ */
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberNameTrigramId implements Serializable {
+    private String gram;
+    private Long memberId;
+}
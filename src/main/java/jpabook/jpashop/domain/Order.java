@@ -5,6 +5,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,13 +14,15 @@ import java.util.List;
 import static jakarta.persistence.FetchType.LAZY;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_total_price", columnList = "total_price"))  // 주문 총액 정렬/범위 검색용
 @Getter @Setter
 // @NoArgsConstuctor : 이 애노테이션을 보면 "아! 직접 생성하면 안되고 뭔가 다른 방법으로 생성해야 되는구나!" 깨달아야 함
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // createOrder() 이외의 방법으로 객체 생성하는 것을 막기 위해
 public class Order {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 1000)  // 시퀀스 한 번 호출로 id 1000개 확보 (pooled-lo) -> insert마다 시퀀스 왕복 안함
     @Column(name = "order_id")
     private Long id;
 
@@ -39,15 +42,26 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    // 주문 총액, 주문상품 줄 수 : orderItems를 로딩하지 않고 목록/정렬/검색에서 orders 테이블만 보고 쓰려고 저장해둔다
+    // 주문상품은 createOrder에서만 추가되니 addOrderItem에서 같이 맞춘다 (취소해도 주문 당시 금액은 그대로 남긴다)
+    private int totalPrice;
+    private int itemCount;
+
     // ==연관관계 편의 메서드== //
     public void setMember(Member member) {
         this.member = member;
-        member.getOrders().add(this);
+        // member.orders가 아직 로딩 안됐으면 건드리지 않는다 -> add() 한번에 회원의 지난 주문 전체를 select 해버림
+        // 로딩 안된 컬렉션은 나중에 처음 접근할 때 DB에서 읽으니 이번 주문도 그때 같이 들어있다
+        if (Hibernate.isInitialized(member) && Hibernate.isInitialized(member.getOrders())) {
+            member.getOrders().add(this);
+        }
     }
 
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getTotalPrice();
+        itemCount++;
     }
 
     public void setDelivery(Delivery delivery) {
@@ -77,32 +91,25 @@ public class Order {
      * 주문 취소
      */
     public void cancel() {
+        changeStatusToCancel();
+        for (OrderItem orderItem: orderItems) {
+            orderItem.cancel(); // orderItem의 cancel() 메서드는 주문 item의 재고 원복하는 메서드
+        }
+    }
+
+    /**
+     * 주문 상태만 취소로 변경 (재고 원복은 호출하는 쪽에서 원자적으로 처리하는 경우)
+     */
+    public void changeStatusToCancel() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem: orderItems) {
-            orderItem.cancel(); // orderItem의 cancel() 메서드는 주문 item의 재고 원복하는 메서드
-        }
     }
     
     //==조회 로직==//
-    /**
-     * 전체 주문 가격 조회
-     * @return
-     */
-    public int getTotalPrice() {
-        int totalPrice = 0;
-//        for (OrderItem orderItem:orderItems) {
-//            totalPrice += orderItem.getTotalPrice();
-//        }
-        totalPrice += orderItems.stream()
-                .mapToInt(OrderItem::getTotalPrice)
-                .sum();
-
-        return totalPrice;
-    }
+    // 전체 주문 가격 조회 : 예전에는 orderItems를 돌면서 합산 (orderItems LAZY 로딩) -> 이제는 저장된 totalPrice 필드 (@Getter)
 }
 
 
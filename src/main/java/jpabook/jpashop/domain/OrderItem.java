@@ -16,7 +16,9 @@ import static jakarta.persistence.FetchType.LAZY;
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // = protected OrderItem() {}
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 1000)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -40,13 +42,20 @@ public class OrderItem {
     //==생성 메서드==//
     // Order는 세팅안함. createOrder() 생성 메서드에서 addOrderItem() 호출시 order에 값 넣어준다
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+
+        item.removeStock(count);
+
+        return orderItem;
+    }
+
+    // 재고는 이미 DB에서 원자적으로 차감한 경우 (ItemRepository.removeStock) -> 엔티티 재고는 건드리지 않는다
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
 
-        item.removeStock(count);
-
         return orderItem;
     }
 
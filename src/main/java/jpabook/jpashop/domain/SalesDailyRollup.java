@@ -0,0 +1,36 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 상품별 일별 판매 집계 (주문일 기준)
+ * 대시보드가 order_item 전체를 훑지 않고 미리 합쳐둔 row만 읽도록
+ * 주문/취소 트랜잭션에서 증감을 outbox(SalesRollupEvent)에 쌓고 주기적으로 한번에 더한다 (SalesRollupService.flush -> SalesRollupRepository의 merge)
+ * 취소는 취소한 날이 아니라 원래 주문일 row에 쌓는다 -> 그날 주문 중 몇 %가 취소됐는지 바로 나온다
+ */
+@Entity
+@Getter
+@IdClass(SalesDailyRollupId.class)
+@Table(name = "sales_daily_rollup")
+@NoArgsConstructor(access = AccessLevel.PROTECTED)   // 직접 만들지 않는다 (insert/update는 네이티브 merge로만)
+public class SalesDailyRollup {
+
+    @Id
+    private LocalDate salesDate;
+
+    @Id
+    private Long itemId;
+
+    private long orderedQuantity;   // 주문 수량
+    private long orderedLines;      // 주문상품 건수
+    private long revenue;           // 주문 금액 (취소 포함)
+
+    private long canceledQuantity;
+    private long canceledLines;
+    private long canceledRevenue;
+}
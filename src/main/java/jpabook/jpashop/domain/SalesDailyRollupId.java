@@ -0,0 +1,21 @@
+package jpabook.jpashop.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * SalesDailyRollup 복합 키 (sales_date, item_id)
+ */
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesDailyRollupId implements Serializable {
+    private LocalDate salesDate;
+    private Long itemId;
+}
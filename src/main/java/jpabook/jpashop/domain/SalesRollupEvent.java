@@ -0,0 +1,37 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 판매 집계에 아직 더하지 않은 증감 한 건 (outbox)
+ * 주문/취소 트랜잭션 안에서 insert만 한다 -> 주문과 함께 커밋되거나 함께 롤백되니 서버가 죽어도 잃지 않는다
+ * SalesRollupService.flush가 모아서 sales_daily_rollup에 더하고 지운다
+ * insert만 하니 인기 상품 주문끼리 같은 row lock을 기다리지 않는다 (집계 row의 lock은 flush 한 곳에서만)
+ */
+@Entity
+@Getter
+@Table(name = "sales_rollup_event", indexes = @Index(name = "idx_sales_rollup_event_date", columnList = "salesDate"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED)   // 직접 만들지 않는다 (insert/delete는 JDBC로만)
+public class SalesRollupEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)    // JDBC batch insert에서 id를 빼고 넣는다
+    @Column(name = "event_id")
+    private Long id;
+
+    private LocalDate salesDate;    // 주문일 (취소도 원래 주문일)
+    private Long itemId;
+
+    private long orderedQuantity;
+    private long orderedLines;
+    private long revenue;
+
+    private long canceledQuantity;
+    private long canceledLines;
+    private long canceledRevenue;
+}
@@ -5,17 +5,29 @@ import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Getter @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)  // 하위 타입(Book, Album, Movie)도 이 region에 같이 캐시된다
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)   // 상속 관계 매핑 어떻게 할지 부모 클래스에 정의!
 @DiscriminatorColumn(name = "dtype")
+@Table(indexes = @Index(name = "idx_item_name", columnList = "name"))  // 상품명 앞글자 검색(자동완성)
+// 변경 감지 update에 바뀐 컬럼만 넣는다
+// 기본(전체 컬럼 update)이면 이름/가격만 고쳐도 읽어둔 stock_quantity까지 다시 써서
+// 그 사이에 커밋된 재고 차감(조건부 update, StockLedger flush)을 덮어쓴다
+@DynamicUpdate
 public abstract class Item {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 1000)
     @Column(name = "item_id")
     private Long id;
 
@@ -0,0 +1,39 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 커넥션 풀에서 커넥션을 빌려서 반납할 때까지 걸린 시간(hold time) 측정
+ * p6spy가 DataSource를 감싸고 있으니 JdbcEventListener를 빈으로 등록하면 커넥션 획득/반납 이벤트를 받을 수 있다
+ * OSIV가 켜져 있으면 요청이 끝날 때까지(뷰 렌더링, JSON 직렬화 포함) 커넥션을 들고 있으니 이 값이 커진다
+ */
+@Component
+public class ConnectionHoldTimeListener extends JdbcEventListener {
+
+    private final Map<ConnectionInformation, Long> acquiredAt = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        if (e == null) {
+            acquiredAt.put(connectionInformation, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        Long start = acquiredAt.remove(connectionInformation);
+        if (start == null) {
+            return;
+        }
+        RequestJdbcContext context = RequestJdbcContext.current();
+        if (context != null) {
+            context.addConnectionHold(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * 요청마다 RequestJdbcContext를 열고, 끝나면 핸들러별 통계에 기록
+ * 인터셉터가 아니라 필터인 이유 : OSIV가 켜져 있으면 커넥션이 인터셉터 afterCompletion 이후에 반납될 수 있어서
+ * DispatcherServlet 전체를 감싸야 반납 시점까지 잡힌다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JdbcMonitoringFilter extends OncePerRequestFilter {
+
+    private final JdbcMonitoringStats stats;
+    private final NPlusOneDetector nPlusOneDetector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestJdbcContext context = RequestJdbcContext.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestJdbcContext.end();
+            String handler = handlerOf(request);
+            stats.record(handler, context);
+            nPlusOneDetector.inspect(handler, context);
+            log.debug("jdbc usage handler={} statements={} connections={} holdMillis={}",
+                    handler, context.getStatementCount(), context.getConnectionCount(), context.getConnectionHoldNanos() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * /api/v1/orders/{id} 같은 매핑 패턴 기준으로 묶는다 (실제 URL로 묶으면 id마다 따로 집계됨)
+     */
+    static String handlerOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern != null ? pattern.toString() : request.getRequestURI();
+        return request.getMethod() + " " + path;
+    }
+}
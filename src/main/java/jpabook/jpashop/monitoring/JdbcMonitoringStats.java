@@ -0,0 +1,60 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 핸들러(요청 URL 패턴)별 JDBC 사용 통계 누적
+ */
+@Component
+public class JdbcMonitoringStats {
+
+    private final Map<String, HandlerStats> handlers = new ConcurrentHashMap<>();
+
+    public void record(String handler, RequestJdbcContext context) {
+        handlers.computeIfAbsent(handler, h -> new HandlerStats())
+                .record(context.getConnectionHoldNanos());
+    }
+
+    public List<ConnectionHoldSnapshot> connectionHoldSnapshot() {
+        return handlers.entrySet().stream()
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .sorted(Comparator.comparingDouble(ConnectionHoldSnapshot::getAvgHoldMillis).reversed())
+                .toList();
+    }
+
+    static class HandlerStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder totalHoldNanos = new LongAdder();
+        private final AtomicLong maxHoldNanos = new AtomicLong();
+
+        void record(long holdNanos) {
+            requests.increment();
+            totalHoldNanos.add(holdNanos);
+            maxHoldNanos.accumulateAndGet(holdNanos, Math::max);
+        }
+
+        ConnectionHoldSnapshot snapshot(String handler) {
+            long count = requests.sum();
+            double avg = count == 0 ? 0 : totalHoldNanos.sum() / (double) count / 1_000_000;
+            return new ConnectionHoldSnapshot(handler, count, avg, maxHoldNanos.get() / 1_000_000.0);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ConnectionHoldSnapshot {
+        private String handler;
+        private long requests;
+        private double avgHoldMillis;   // 요청 하나가 커넥션을 들고 있던 평균 시간
+        private double maxHoldMillis;
+    }
+}
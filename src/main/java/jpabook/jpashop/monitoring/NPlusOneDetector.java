@@ -0,0 +1,50 @@
+package jpabook.jpashop.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * N+1 감지
+ * 요청 하나 안에서 같은 모양의 select가 threshold번 이상 나가면 N+1로 의심한다
+ * ex) /api/v2/simple-orders : order 1번 + SimpleOrderDto에서 getMember(), getDelivery() LAZY 로딩이 주문 수만큼
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector {
+
+    private final int threshold;
+    private final Map<String, LongAdder> suspectedByHandler = new ConcurrentHashMap<>();
+
+    public NPlusOneDetector(@Value("${jpashop.n-plus-one.threshold:5}") int threshold) {
+        this.threshold = threshold;
+    }
+
+    public void inspect(String handler, RequestJdbcContext context) {
+        boolean suspected = false;
+        for (Map.Entry<String, Integer> shape : context.getSelectShapes().entrySet()) {
+            if (shape.getValue() >= threshold) {
+                suspected = true;
+                log.warn("N+1 suspected handler=\"{}\" repeated={} totalStatements={} threshold={} sql=\"{}\"",
+                        handler, shape.getValue(), context.getStatementCount(), threshold, shape.getKey());
+            }
+        }
+        if (suspected) {
+            suspectedByHandler.computeIfAbsent(handler, h -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 핸들러별로 N+1 의심 요청이 몇 번 있었는지
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> result = new TreeMap<>();
+        suspectedByHandler.forEach((handler, count) -> result.put(handler, count.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP 요청 하나 동안 JDBC 사용량을 모아두는 곳 (요청 처리 스레드의 ThreadLocal)
+ * JdbcMonitoringFilter가 요청 시작/끝에서 열고 닫는다
+ * 요청 스레드가 아닌 곳(비동기 스트리밍, 스케줄러 등)에서는 current()가 null
+ */
+public class RequestJdbcContext {
+
+    private static final ThreadLocal<RequestJdbcContext> CURRENT = new ThreadLocal<>();
+
+    private long connectionHoldNanos;
+    private int connectionCount;
+    private int statementCount;
+    private final Map<String, Integer> selectShapes = new HashMap<>();   // 같은 모양 select가 몇 번 나갔는지 (배치 로딩 IN 쿼리는 빼고)
+
+    public static RequestJdbcContext begin() {
+        RequestJdbcContext context = new RequestJdbcContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static RequestJdbcContext current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void addConnectionHold(long nanos) {
+        connectionHoldNanos += nanos;
+        connectionCount++;
+    }
+
+    void countStatement(String sql) {
+        statementCount++;
+        String shape = SqlShape.of(sql);
+        if (shape.startsWith("select") && !SqlShape.isBatchLoad(sql)) {
+            selectShapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public Map<String, Integer> getSelectShapes() {
+        return selectShapes;
+    }
+
+    public long getConnectionHoldNanos() {
+        return connectionHoldNanos;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+}
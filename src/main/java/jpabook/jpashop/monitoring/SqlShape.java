@@ -0,0 +1,35 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * SQL의 "모양" : 파라미터 값과 공백 차이를 없애서 같은 쿼리인지 비교할 수 있게 만든 문자열
+ * PreparedStatement SQL은 이미 값 대신 ? 라서 공백 정리 + IN 목록 길이만 맞춰주면 된다
+ */
+final class SqlShape {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern MULTI_BIND_IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANY_ARRAY = Pattern.compile("=\\s*any\\s*\\(\\s*\\?\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+    private SqlShape() {
+    }
+
+    static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+
+    /**
+     * default_batch_fetch_size 배치 로딩인지 : IN 목록에 ?가 2개 이상 (또는 배열 하나로 묶은 = any(?))
+     * 프록시/컬렉션 100개를 IN 한번에 읽는 건 N+1을 이미 해결한 모양이라, 여러 번 나가도 N+1로 세지 않는다
+     */
+    static boolean isBatchLoad(String sql) {
+        return sql != null && (MULTI_BIND_IN_LIST.matcher(sql).find() || ANY_ARRAY.matcher(sql).find());
+    }
+}
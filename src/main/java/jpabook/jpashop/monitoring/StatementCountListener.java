@@ -0,0 +1,23 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 실행된 SQL을 현재 요청(RequestJdbcContext)에 기록
+ * p6spy는 SQL 로그만 찍고 있었는데, 같은 리스너 훅으로 요청별 SQL 횟수와 모양까지 센다
+ */
+@Component
+public class StatementCountListener extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        RequestJdbcContext context = RequestJdbcContext.current();
+        if (context != null) {
+            context.countStatement(statementInformation.getSql());
+        }
+    }
+}
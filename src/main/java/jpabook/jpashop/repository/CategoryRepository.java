@@ -0,0 +1,121 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.repository.category.CategoryItemCount;
+import jpabook.jpashop.repository.category.CategoryItemRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 새 카테고리의 경로 추가 : 부모의 모든 조상 -> 나 (depth + 1) + 나 -> 나 (depth 0)
+     */
+    public void insertClosure(Long categoryId, Long parentId) {
+        em.flush();     // category row가 먼저 있어야 한다
+        em.createNativeQuery("insert into category_closure (ancestor_id, descendant_id, depth) values (?1, ?1, 0)")
+                .setParameter(1, categoryId)
+                .executeUpdate();
+        if (parentId != null) {
+            em.createNativeQuery(
+                            "insert into category_closure (ancestor_id, descendant_id, depth)" +
+                                    " select p.ancestor_id, ?1, p.depth + 1 from category_closure p where p.descendant_id = ?2")
+                    .setParameter(1, categoryId)
+                    .setParameter(2, parentId)
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * 하위 트리(categoryId와 그 자손들)를 newParentId 밑으로 옮긴다
+     * 1. 하위 트리 밖의 조상 -> 하위 트리 노드 경로를 지우고
+     * 2. 새 부모의 조상들 x 하위 트리 노드들 경로를 새로 만든다 (하위 트리 안쪽 경로는 그대로)
+     */
+    public void moveClosure(Long categoryId, Long newParentId) {
+        em.flush();
+        em.createNativeQuery(
+                        "delete from category_closure" +
+                                " where descendant_id in (select d.descendant_id from category_closure d where d.ancestor_id = ?1)" +
+                                " and ancestor_id not in (select d.descendant_id from category_closure d where d.ancestor_id = ?1)")
+                .setParameter(1, categoryId)
+                .executeUpdate();
+        if (newParentId != null) {
+            em.createNativeQuery(
+                            "insert into category_closure (ancestor_id, descendant_id, depth)" +
+                                    " select p.ancestor_id, s.descendant_id, p.depth + s.depth + 1" +
+                                    " from category_closure p, category_closure s" +
+                                    " where p.descendant_id = ?2 and s.ancestor_id = ?1")
+                    .setParameter(1, categoryId)
+                    .setParameter(2, newParentId)
+                    .executeUpdate();
+        }
+    }
+
+    public boolean isDescendant(Long ancestorId, Long categoryId) {
+        return !em.createQuery(
+                        "select cc.depth from CategoryClosure cc where cc.ancestorId = :ancestorId and cc.descendantId = :categoryId", Integer.class)
+                .setParameter("ancestorId", ancestorId)
+                .setParameter("categoryId", categoryId)
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * 하위 트리 전체 상품을 쿼리 한번으로 (item_id 커서 페이징)
+     * 클로저 PK(ancestor_id) -> 하위 카테고리들 -> category_item 인덱스 -> 상품
+     * 한 상품이 하위 트리의 여러 카테고리에 걸려 있어도 한 번만 나온다
+     * @param lastItemId 이전 페이지의 마지막 item_id (첫 페이지면 null)
+     */
+    public List<CategoryItemRow> findSubtreeItems(Long rootId, Long lastItemId, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.category.CategoryItemRow(i.id, i.name, i.price, i.stockQuantity)" +
+                " from Item i" +
+                " where i.id in (" +
+                "   select ci.id from CategoryClosure cc, Category c join c.items ci" +
+                "   where cc.ancestorId = :rootId and c.id = cc.descendantId)";
+        if (lastItemId != null) {
+            jpql += " and i.id > :lastItemId";
+        }
+        jpql += " order by i.id";
+
+        TypedQuery<CategoryItemRow> query = em.createQuery(jpql, CategoryItemRow.class)
+                .setParameter("rootId", rootId)
+                .setMaxResults(limit);
+        if (lastItemId != null) {
+            query.setParameter("lastItemId", lastItemId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 하위 트리의 카테고리별 상품 수 (그 카테고리의 하위 트리까지 포함, 중복 상품은 한 번)
+     * 상품이 없는 카테고리도 0으로 나온다
+     */
+    public List<CategoryItemCount> countSubtreeItems(Long rootId) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.category.CategoryItemCount(c.id, c.name, root.depth, count(distinct ci.id))" +
+                                " from CategoryClosure root" +
+                                " join Category c on c.id = root.descendantId" +
+                                " join CategoryClosure sub on sub.ancestorId = root.descendantId" +
+                                " join Category sc on sc.id = sub.descendantId" +
+                                " left join sc.items ci" +
+                                " where root.ancestorId = :rootId" +
+                                " group by c.id, c.name, root.depth" +
+                                " order by root.depth, c.id", CategoryItemCount.class)
+                .setParameter("rootId", rootId)
+                .getResultList();
+    }
+}
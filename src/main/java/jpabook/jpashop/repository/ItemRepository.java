@@ -1,16 +1,35 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.item.ItemSearchDocument;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.PreparedStatement;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
+    private static final String SEARCH_DOCUMENT_SQL =
+            "select item_id, dtype, name, price, author, isbn, artist, director, actor from item";
+    private static final RowMapper<ItemSearchDocument> SEARCH_DOCUMENT_MAPPER = (rs, rowNum) -> new ItemSearchDocument(
+            rs.getLong("item_id"), rs.getString("dtype"), rs.getString("name"), rs.getInt("price"),
+            rs.getString("author"), rs.getString("isbn"), rs.getString("artist"),
+            rs.getString("director"), rs.getString("actor"));
+
     private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
 
     public void save(Item item) {
         // 
@@ -37,9 +56,113 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 여러 상품을 IN 쿼리 한번으로 조회 (장바구니 주문)
+     */
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
 
+    /**
+     * 이름이 prefix로 시작하는 상품 limit 개 (이름 순, idx_item_name 범위 검색)
+     */
+    public List<SelectOption> findOptionsByNamePrefix(String prefix, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.SelectOption(i.id, i.name) from Item i" +
+                                " where i.name like :prefix escape '!' order by i.name, i.id", SelectOption.class)
+                .setParameter("prefix", LikePattern.prefix(prefix))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 검색 색인 채우기용 : 엔티티로 올리지 않고 item 테이블(SINGLE_TABLE)에서 검색 대상 컬럼만 한 줄씩 흘려보낸다
+     */
+    public void forEachSearchDocument(Consumer<ItemSearchDocument> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SEARCH_DOCUMENT_SQL);
+            ps.setFetchSize(1000);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(SEARCH_DOCUMENT_MAPPER.mapRow(rs, 0)));
+    }
+
+    /**
+     * 상품 한 건의 검색 대상 컬럼 (커밋된 뒤 색인 갱신용, 지워졌으면 null)
+     */
+    public ItemSearchDocument findSearchDocument(Long itemId) {
+        return jdbcTemplate.query(SEARCH_DOCUMENT_SQL + " where item_id = ?", SEARCH_DOCUMENT_MAPPER, itemId)
+                .stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 재고 원자적 차감
+     * item.removeStock()은 조회 -> 메모리에서 빼기 -> dirty checking으로 update 라서
+     * 동시에 같은 상품을 주문하면 서로 같은 재고를 읽고 덮어써서 갱신 분실(lost update) + 초과 판매가 생긴다
+     * -> "재고가 충분할 때만 빼라"를 update 쿼리 하나로 DB에서 처리 (row lock이 잡혀서 동시 요청은 순서대로 처리됨)
+     * update된 row가 0건이면 재고 부족
+     * bulk 연산은 영속성 컨텍스트를 무시하고 DB에 바로 날라가니 끝나고 item을 refresh 해서 DB 값과 맞춘다
+     *
+     * JPQL bulk update(executeUpdate)를 쓰면 Hibernate가 Item 2차 캐시 region을 통째로 비워버린다 (주문 1건마다 전체 상품 캐시 날라감)
+     * -> JDBC로 직접 update 하고 해당 item 한 건만 캐시에서 지운다
+     */
+    public void removeStock(Item item, int quantity) {
+        removeStockById(item.getId(), quantity);
+        em.refresh(item);
+    }
+
+    /**
+     * 엔티티 없이 id로 재고 차감 (영속성 컨텍스트의 Item은 refresh 하지 않는다)
+     * 차감한 뒤에 조회하면 차감된 재고가 보인다
+     * 없는 상품이어도 update 0건이라 재고 부족으로 처리된다
+     */
+    public void removeStockById(Long itemId, int quantity) {
+        em.flush(); // JdbcTemplate은 JPA 쓰기 지연 SQL 저장소를 모르니 먼저 DB로 내려보낸다
+        int updated = jdbcTemplate.update(
+                "update item set stock_quantity = stock_quantity - ? where item_id = ? and stock_quantity >= ?",
+                quantity, itemId, quantity);
+        if (updated == 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        evictFromCache(itemId);
+    }
+
+    /**
+     * 재고 원자적 증가 (주문 취소)
+     */
+    public void addStock(Item item, int quantity) {
+        em.flush();
+        jdbcTemplate.update("update item set stock_quantity = stock_quantity + ? where item_id = ?",
+                quantity, item.getId());
+        evictFromCache(item.getId());
+        if (em.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(item)) {
+            em.refresh(item);   // 아직 초기화 안된 프록시면 어차피 나중에 DB에서 새로 읽으니 refresh 불필요
+        }
+    }
+
+    /**
+     * 지금 지우고, 트랜잭션이 끝난 뒤에 한번 더 지운다
+     * (커밋 전에 다른 트랜잭션이 예전 값을 읽어서 다시 캐시에 넣을 수 있으니까)
+     */
+    private void evictFromCache(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Item.class, itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Item.class, itemId);
+                }
+            });
+        }
+    }
+
 }
@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository;
+
+/**
+ * like 검색어 만들기
+ * 사용자가 입력한 %, _ 는 와일드카드가 아니라 글자 그대로 찾아야 하니 escape 한다 (JPQL에서 escape '!' 로 같이 써야 함)
+ */
+public final class LikePattern {
+
+    public static final char ESCAPE = '!';   // 역슬래시는 HQL 문자열 리터럴 안에서 또 escape 해야 해서 피한다
+
+    private LikePattern() {
+    }
+
+    /**
+     * "abc" -> "abc%" : 앞부분이 고정이라 name 인덱스를 범위 검색으로 탈 수 있다
+     */
+    public static String prefix(String text) {
+        return escape(text) + "%";
+    }
+
+    public static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 4);
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.MemberNameTrigram;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class MemberNameTrigramRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 회원의 trigram을 새 이름 기준으로 바꾼다 (가입이면 지울 게 없을 뿐)
+     */
+    public void replace(Long memberId, String name) {
+        jdbcTemplate.update("delete from member_name_trigram where member_id = ?", memberId);
+        List<Object[]> rows = new ArrayList<>();
+        for (String gram : MemberNameTrigram.of(name)) {
+            rows.add(new Object[]{gram, memberId});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member_name_trigram (gram, member_id) values (?, ?)", rows);
+        }
+    }
+
+    /**
+     * 검색어의 trigram을 전부 가진 회원 id (이름에 검색어가 들어있을 수 있는 후보)
+     *
+     * gram in (...) group by member_id 한방으로 하면 흔한 조각("use", "ser" 처럼 거의 모든 회원이 가진 것)의 posting까지 전부 읽어야 limit이 걸린다
+     * -> 조각마다 posting을 maxGramPostings + 1 건까지만 읽고, 그보다 많은 흔한 조각은 건너뛴다
+     *    (건너뛴 조각만큼 후보가 넓어질 뿐, 최종 like 조건이 다시 거르니 결과는 같다)
+     * -> 남은 조각들의 posting을 작은 것부터 메모리에서 교집합 (비면 바로 끝)
+     *
+     * null이면 호출하는 쪽에서 like 검색으로 돌아간다
+     *  - 모든 조각이 흔해서 좁힐 수 없을 때
+     *  - 후보가 maxCandidates 를 넘을 때 (IN 목록이 너무 길어진다)
+     * 검색어가 3글자보다 짧으면 trigram이 없으니 호출하면 안된다
+     */
+    public List<Long> findCandidateMemberIds(String query, int maxCandidates, int maxGramPostings) {
+        Set<String> grams = MemberNameTrigram.of(query);
+        if (grams.isEmpty()) {
+            throw new IllegalArgumentException("검색어는 " + MemberNameTrigram.N + "글자 이상이어야 합니다.");
+        }
+
+        List<Set<Long>> postings = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "select member_id from member_name_trigram where gram = ? limit ?",
+                    Long.class, gram, maxGramPostings + 1);
+            if (ids.isEmpty()) {
+                return Collections.emptyList();     // 이 조각을 가진 회원이 없으면 후보도 없다
+            }
+            if (ids.size() <= maxGramPostings) {
+                postings.add(new HashSet<>(ids));
+            }
+        }
+        if (postings.isEmpty()) {
+            return null;
+        }
+
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> candidates = postings.get(0);
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates.size() > maxCandidates ? null : new ArrayList<>(candidates);
+    }
+}
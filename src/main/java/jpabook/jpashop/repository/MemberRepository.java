@@ -2,12 +2,20 @@ package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.MemberField;
+import jpabook.jpashop.repository.member.MemberRow;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository //자동으로 spring bean으로 등록해줌
 @RequiredArgsConstructor
@@ -19,6 +27,14 @@ public class MemberRepository {
         em.persist(member);
     }
 
+    /**
+     * 쓰기 지연된 insert를 지금 DB로 내려보낸다 (유니크 제약조건 위반을 이 자리에서 받으려고)
+     * @Repository라서 제약조건 위반은 DataIntegrityViolationException으로 바뀌어서 나간다
+     */
+    public void flush() {
+        em.flush();
+    }
+
     public Member findOne(Long id) {
         return em.find(Member.class, id);
     }
@@ -33,4 +49,70 @@ public class MemberRepository {
                 .setParameter("name", name)
                 .getResultList();
     }
+
+    /**
+     * 존재 여부만 확인 : 엔티티를 만들지 않고 id 하나만 1건 조회 (name 유니크 인덱스만 보고 끝난다)
+     */
+    public boolean existsByName(String name) {
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * id 커서 페이징 + 요청한 필드만 select (엔티티를 만들지 않는다)
+     * @param lastId 이전 페이지의 마지막 member_id (첫 페이지면 null)
+     */
+    public List<MemberRow> findPage(Long lastId, int limit, Set<MemberField> fields) {
+        boolean name = fields.contains(MemberField.NAME);
+        boolean address = fields.contains(MemberField.ADDRESS);
+        String jpql = "select m.id" +
+                (name ? ", m.name" : "") +
+                (address ? ", m.address" : "") +
+                " from Member m" +
+                (lastId != null ? " where m.id > :lastId" : "") +
+                " order by m.id";
+
+        TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class)
+                .setMaxResults(limit);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        List<MemberRow> rows = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            int column = 1;
+            String memberName = name ? (String) row[column++] : null;
+            Address memberAddress = address ? (Address) row[column] : null;
+            rows.add(new MemberRow((Long) row[0], memberName, memberAddress));
+        }
+        return rows;
+    }
+
+    /**
+     * 이름이 prefix로 시작하는 회원 limit 명 (이름 순)
+     * like 'prefix%' 는 uk_member_name 인덱스 범위 검색 + limit 에서 멈춘다
+     * 기존 DB(ddl-auto: none)는 application.yml 주석의 uk_member_name 마이그레이션을 돌려야 인덱스가 생긴다
+     * (안 돌리면 member 전체를 읽고 정렬한다)
+     */
+    public List<SelectOption> findOptionsByNamePrefix(String prefix, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.SelectOption(m.id, m.name) from Member m" +
+                                " where m.name like :prefix escape '!' order by m.name", SelectOption.class)
+                .setParameter("prefix", LikePattern.prefix(prefix))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 전체 회원 이름을 흘려보낸다 (엔티티 X, 이름만)
+     */
+    public void forEachName(Consumer<String> action) {
+        try (Stream<String> names = em.createQuery("select m.name from Member m", String.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .getResultStream()) {
+            names.forEach(action);
+        }
+    }
 }
@@ -6,11 +6,15 @@ import jakarta.persistence.criteria.*;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
@@ -150,6 +154,41 @@ public class OrderRepository {
         ).getResultList();
     }
 
+    /**
+     * findAllWithItem의 한 페이지 버전
+     * 컬렉션 fetch join에 setMaxResults를 걸면 DB에서 자르지 못하고 전부 읽어서 메모리에서 자른다
+     * -> 주문 id를 먼저 limit 건 고르고 그 주문들만 컬렉션 fetch join
+     * @param lastOrderId 이전 페이지의 마지막 order_id (첫 페이지면 null)
+     */
+    public List<Order> findAllWithItem(Long lastOrderId, int limit) {
+        String jpql = "select o.id from Order o";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Long> idQuery = em.createQuery(jpql, Long.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            idQuery.setParameter("lastOrderId", lastOrderId);
+        }
+        List<Long> orderIds = idQuery.getResultList();
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+
+        return em.createQuery(
+                "select distinct o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " join fetch o.orderItems oi" +
+                        " join fetch oi.item i" +
+                        " where o.id in :orderIds" +
+                        " order by o.id", Order.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
         return em.createQuery(
                 "select o from Order o" +
@@ -160,6 +199,65 @@ public class OrderRepository {
                 .getResultList();
     }
 
+    /**
+     * 커서(keyset) 기반 페이징
+     * offset 방식은 앞의 offset 개수만큼 DB가 읽고 버려야 해서 뒤 페이지로 갈수록 느려진다
+     * -> 마지막으로 읽은 order_id 다음부터 PK 인덱스를 타고 limit 만큼만 읽으니 몇 번째 페이지든 비용이 같다
+     * ToOne 관계는 그대로 fetch join, orderItems는 default_batch_fetch_size로 IN 쿼리 처리
+     * @param lastOrderId 이전 페이지의 마지막 order_id (첫 페이지면 null)
+     */
+    public List<Order> findAllWithMemberDeliveryAfter(Long lastOrderId, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 전체 주문을 메모리에 다 올리지 않고 chunkSize 건씩 흘려보낸다
+     * 1. forward-only 커서(scroll)로 읽고 JDBC fetch size만큼씩만 DB에서 받아온다
+     * 2. chunk를 모아서 넘기는 이유 : chunk 안에서 orderItems에 처음 접근할 때
+     *    default_batch_fetch_size로 chunk 전체의 orderItems를 IN 쿼리 한번에 가져오게 하려고 (한 건씩 넘기면 N+1)
+     * 3. chunk 처리가 끝날 때마다 em.clear() -> 영속성 컨텍스트가 계속 커지지 않아서 힙 사용량이 일정
+     * 트랜잭션 안에서 호출해야 한다 (커서가 열려있는 동안 커넥션 필요)
+     */
+    public void scrollAllWithMemberDelivery(int chunkSize, Consumer<List<Order>> chunkConsumer) {
+        Query<Order> query = em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " order by o.id", Order.class)
+                .unwrap(Query.class);
+        query.setFetchSize(chunkSize);
+        query.setReadOnly(true);    // 스냅샷 안 만든다
+
+        try (ScrollableResults<Order> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            List<Order> chunk = new ArrayList<>(chunkSize);
+            while (results.next()) {
+                chunk.add(results.get());
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk.clear();
+                    em.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+                em.clear();
+            }
+        }
+    }
+
     /**
      * distinct의 2가지 기능
      * 1. db query에 distinct 포함되어서 날라감
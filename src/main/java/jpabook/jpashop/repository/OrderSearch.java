@@ -3,10 +3,22 @@ package jpabook.jpashop.repository;
 import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Getter
 @Setter
 public class OrderSearch {
     private String memberName;          //회원 이름
     private OrderStatus orderStatus;    //주문 상태[ORDER, CANCEL]
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom;    //주문일 시작 (포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;      //주문일 끝 (포함)
+    private Long itemId;                //이 상품을 포함한 주문
+    private Integer minTotalPrice;      //주문 총액 최소
+    private Integer maxTotalPrice;      //주문 총액 최대
+    private String sort;                //정렬 [비어있으면 최신순, totalPrice : 주문 총액 큰 순]
 }
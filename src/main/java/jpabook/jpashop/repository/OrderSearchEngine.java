@@ -0,0 +1,241 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.MemberNameTrigram;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.order.query.OrderListRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 주문 검색
+ * findAllByString / findAllByCriteria는 호출할 때마다 JPQL 문자열, Criteria 트리를 새로 만든다
+ * -> 검색 조건 조합(어떤 조건이 들어왔는지)마다 쿼리 모양이 딱 하나로 정해지니까
+ *    조합별로 처음 한번만 JPQL을 만들어서 named query로 등록(파싱)해두고 이후에는 꺼내서 파라미터만 바인딩한다
+ * 회원 이름 부분 검색(like '%name%')은 member_name_trigram으로 후보 회원을 먼저 좁히고 member_id IN 으로 주문을 찾는다
+ */
+@Repository
+public class OrderSearchEngine {
+
+    // 검색 조건별 bit -> 조건 조합 = bit mask
+    private static final int STATUS = 1;
+    private static final int MEMBER_NAME = 1 << 1;
+    private static final int DATE_FROM = 1 << 2;
+    private static final int DATE_TO = 1 << 3;
+    private static final int ITEM = 1 << 4;
+    private static final int MIN_TOTAL_PRICE = 1 << 5;
+    private static final int MAX_TOTAL_PRICE = 1 << 6;
+    private static final int SORT_BY_TOTAL_PRICE = 1 << 7;
+    private static final int MEMBER_IDS = 1 << 8;    // 회원 이름 검색을 trigram 후보 회원 id로 좁혔을 때
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final MemberNameTrigramRepository memberNameTrigramRepository;
+    private final int maxResults;
+    private final int maxMemberCandidates;
+    private final int maxGramPostings;
+    private final Map<String, String> registered = new ConcurrentHashMap<>();
+
+    public OrderSearchEngine(EntityManager em, EntityManagerFactory emf, MemberNameTrigramRepository memberNameTrigramRepository,
+                             @Value("${jpashop.order-search.max-results:1000}") int maxResults,
+                             @Value("${jpashop.order-search.max-member-candidates:1000}") int maxMemberCandidates,
+                             @Value("${jpashop.order-search.max-gram-postings:10000}") int maxGramPostings) {
+        this.em = em;
+        this.emf = emf;
+        this.memberNameTrigramRepository = memberNameTrigramRepository;
+        this.maxResults = maxResults;
+        this.maxMemberCandidates = maxMemberCandidates;
+        this.maxGramPostings = maxGramPostings;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * 최신 주문 순 (sort=totalPrice 면 주문 총액 큰 순), limit은 max-results를 넘을 수 없다
+     */
+    public List<Order> search(OrderSearch orderSearch, int offset, int limit) {
+        List<Long> memberIds = resolveMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int shape = shapeOf(orderSearch, memberIds);
+        String name = register("OrderSearch.search." + shape,
+                "select o from Order o join o.member m" + where(shape) + orderBy(shape));
+
+        TypedQuery<Order> query = em.createNamedQuery(name, Order.class)
+                .setFirstResult(offset)
+                .setMaxResults(Math.min(limit, maxResults));
+        bind(query, orderSearch, shape, memberIds);
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 목록 화면(order/orderList) 전용 : 화면에 찍는 컬럼만 SQL 한번으로
+     * 주문 총액, 주문상품 수는 orders 컬럼이라 집계 없이 바로 읽는다
+     * 엔티티로 넘기면 타임리프가 렌더링하면서 member, orderItems, item을 LAZY 로딩해서 row마다 쿼리가 나간다
+     * 대표상품 = 주문상품 중 id가 가장 작은 것 (= orderItems[0])
+     */
+    public List<OrderListRow> searchListRows(OrderSearch orderSearch, int offset, int limit) {
+        List<Long> memberIds = resolveMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int shape = shapeOf(orderSearch, memberIds);
+        String where = where(shape);
+        String name = register("OrderSearch.listRows." + shape,
+                "select new jpabook.jpashop.repository.order.query.OrderListRow(o.id, m.name, i.name, oi.orderPrice, oi.count, o.totalPrice, o.itemCount, o.status, o.orderDate)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.orderItems oi" +
+                        " join oi.item i" +
+                        where + (where.isEmpty() ? " where" : " and") +
+                        " oi.id = (select min(foi.id) from OrderItem foi where foi.order = o)" +
+                        orderBy(shape));
+
+        TypedQuery<OrderListRow> query = em.createNamedQuery(name, OrderListRow.class)
+                .setFirstResult(offset)
+                .setMaxResults(Math.min(limit, maxResults));
+        bind(query, orderSearch, shape, memberIds);
+        return query.getResultList();
+    }
+
+    /**
+     * search와 같은 조건의 전체 건수 (페이징용)
+     */
+    public long count(OrderSearch orderSearch) {
+        List<Long> memberIds = resolveMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return 0;
+        }
+        int shape = shapeOf(orderSearch, memberIds);
+        String name = register("OrderSearch.count." + shape,
+                "select count(o) from Order o join o.member m" + where(shape));
+
+        TypedQuery<Long> query = em.createNamedQuery(name, Long.class);
+        bind(query, orderSearch, shape, memberIds);
+        return query.getSingleResult();
+    }
+
+    /**
+     * 지금까지 등록한 named query 수 (조건 조합 x 쿼리 종류)
+     */
+    public int registeredQueryCount() {
+        return registered.size();
+    }
+
+    /**
+     * 처음 보는 조합이면 JPQL을 만들어서 named query로 등록 (Hibernate가 이때 파싱해서 들고 있는다)
+     */
+    private String register(String name, String jpql) {
+        registered.computeIfAbsent(name, n -> {
+            try (EntityManager tmp = emf.createEntityManager()) {
+                emf.addNamedQuery(n, tmp.createQuery(jpql));
+            }
+            return jpql;
+        });
+        return name;
+    }
+
+    /**
+     * 회원 이름 부분 검색 : trigram 색인으로 후보 회원 id를 먼저 구한다
+     * null이면 후보로 좁히지 않고 like만 쓴다 (검색어가 3글자 미만이거나, 조각이 전부 흔하거나, 후보가 너무 많아서 IN 목록이 길어질 때)
+     * 빈 목록이면 걸리는 회원이 없으니 주문도 없다
+     */
+    private List<Long> resolveMemberIds(OrderSearch s) {
+        String memberName = s.getMemberName();
+        if (!StringUtils.hasText(memberName) || memberName.length() < MemberNameTrigram.N) {
+            return null;
+        }
+        return memberNameTrigramRepository.findCandidateMemberIds(memberName, maxMemberCandidates, maxGramPostings);
+    }
+
+    private int shapeOf(OrderSearch s, List<Long> memberIds) {
+        int shape = 0;
+        if (s.getOrderStatus() != null) shape |= STATUS;
+        if (StringUtils.hasText(s.getMemberName())) shape |= MEMBER_NAME;
+        if (memberIds != null) shape |= MEMBER_IDS;
+        if (s.getOrderDateFrom() != null) shape |= DATE_FROM;
+        if (s.getOrderDateTo() != null) shape |= DATE_TO;
+        if (s.getItemId() != null) shape |= ITEM;
+        if (s.getMinTotalPrice() != null) shape |= MIN_TOTAL_PRICE;
+        if (s.getMaxTotalPrice() != null) shape |= MAX_TOTAL_PRICE;
+        if ("totalPrice".equals(s.getSort())) shape |= SORT_BY_TOTAL_PRICE;
+        return shape;
+    }
+
+    private String where(int shape) {
+        List<String> conditions = new ArrayList<>();
+        if (has(shape, STATUS)) {
+            conditions.add("o.status = :status");
+        }
+        if (has(shape, MEMBER_IDS)) {
+            conditions.add("o.member.id in :memberIds");     // orders.member_id 인덱스로 후보 회원의 주문만
+        }
+        if (has(shape, MEMBER_NAME)) {
+            conditions.add("m.name like :name escape '" + LikePattern.ESCAPE + "'");    // trigram 후보는 조각만 맞는 것일 수 있으니 최종 확인
+        }
+        if (has(shape, DATE_FROM)) {
+            conditions.add("o.orderDate >= :dateFrom");
+        }
+        if (has(shape, DATE_TO)) {
+            conditions.add("o.orderDate < :dateTo");
+        }
+        if (has(shape, ITEM)) {
+            conditions.add("exists (select ioi.id from OrderItem ioi where ioi.order = o and ioi.item.id = :itemId)");
+        }
+        // 주문 총액은 orders.total_price 컬럼 (order_item 합계 서브쿼리 없이)
+        if (has(shape, MIN_TOTAL_PRICE)) {
+            conditions.add("o.totalPrice >= :minTotalPrice");
+        }
+        if (has(shape, MAX_TOTAL_PRICE)) {
+            conditions.add("o.totalPrice <= :maxTotalPrice");
+        }
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private String orderBy(int shape) {
+        return has(shape, SORT_BY_TOTAL_PRICE) ? " order by o.totalPrice desc, o.id desc" : " order by o.id desc";
+    }
+
+    private void bind(TypedQuery<?> query, OrderSearch s, int shape, List<Long> memberIds) {
+        if (has(shape, STATUS)) {
+            query.setParameter("status", s.getOrderStatus());
+        }
+        if (has(shape, MEMBER_IDS)) {
+            query.setParameter("memberIds", memberIds);
+        }
+        if (has(shape, MEMBER_NAME)) {
+            query.setParameter("name", "%" + LikePattern.escape(s.getMemberName()) + "%");   // 입력한 %, _ 는 글자 그대로 (trigram 후보와 같은 기준)
+        }
+        if (has(shape, DATE_FROM)) {
+            query.setParameter("dateFrom", s.getOrderDateFrom().atStartOfDay());
+        }
+        if (has(shape, DATE_TO)) {
+            query.setParameter("dateTo", s.getOrderDateTo().plusDays(1).atStartOfDay());  // 끝 날짜 하루 전체 포함
+        }
+        if (has(shape, ITEM)) {
+            query.setParameter("itemId", s.getItemId());
+        }
+        if (has(shape, MIN_TOTAL_PRICE)) {
+            query.setParameter("minTotalPrice", s.getMinTotalPrice());
+        }
+        if (has(shape, MAX_TOTAL_PRICE)) {
+            query.setParameter("maxTotalPrice", s.getMaxTotalPrice());
+        }
+    }
+
+    private static boolean has(int shape, int condition) {
+        return (shape & condition) != 0;
+    }
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository;
+
+import lombok.Data;
+
+/**
+ * 화면 선택 목록(자동완성) 한 줄 : id + 보여줄 이름
+ */
+@Data
+public class SelectOption {
+    private Long id;
+    private String name;
+
+    public SelectOption(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 테이블 대략적인 row 수 (페이지 화면의 "전체 n건" 표시용)
+ * count(*)는 테이블(또는 인덱스) 전체를 세니 회원 수십만 명이면 요청마다 부담
+ * -> DB가 들고 있는 통계값(H2 information_schema.tables.row_count_estimate)을 읽고 ttl 동안 메모리에 들고 있는다
+ * 통계값을 못 읽으면 그때만 count(*)
+ * 정확한 값이 아니다 : ttl 사이에 가입/탈퇴한 만큼, 그리고 DB 통계가 늦은 만큼 차이가 난다
+ */
+@Repository
+public class TableRowEstimator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+
+    public TableRowEstimator(JdbcTemplate jdbcTemplate,
+                             @Value("${jpashop.row-estimate.ttl-seconds:60}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * @param table 엔티티가 아니라 테이블 이름 (코드에 박힌 값만 넘길 것, 사용자 입력 X)
+     */
+    public long estimate(String table) {
+        long now = System.currentTimeMillis();
+        Estimate cached = estimates.get(table);
+        if (cached != null && now - cached.at < ttlMillis) {
+            return cached.rows;
+        }
+        // 만료되면 동시에 여러 요청이 다시 읽을 수 있지만 가벼운 조회라 막지 않는다
+        long rows = read(table);
+        estimates.put(table, new Estimate(rows, now));
+        return rows;
+    }
+
+    private long read(String table) {
+        List<Long> stats = jdbcTemplate.queryForList(
+                "select row_count_estimate from information_schema.tables" +
+                        " where table_schema = current_schema and table_name = ?",
+                Long.class, table.toUpperCase(Locale.ROOT));
+        if (!stats.isEmpty() && stats.get(0) != null) {
+            return stats.get(0);
+        }
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static class Estimate {
+        private final long rows;
+        private final long at;
+
+        private Estimate(long rows, long at) {
+            this.rows = rows;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository.category;
+
+import lombok.Data;
+
+/**
+ * 하위 트리의 카테고리 하나 + 그 카테고리 밑(자손 포함) 상품 수
+ */
+@Data
+public class CategoryItemCount {
+    private Long categoryId;
+    private String name;
+    private int depth;          // 조회한 루트로부터의 깊이 (루트 = 0)
+    private long itemCount;
+
+    public CategoryItemCount(Long categoryId, String name, int depth, Long itemCount) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.depth = depth;
+        this.itemCount = itemCount;
+    }
+}
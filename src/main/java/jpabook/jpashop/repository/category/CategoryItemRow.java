@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository.category;
+
+import lombok.Data;
+
+/**
+ * 카테고리 하위 트리 상품 목록 한 줄
+ */
+@Data
+public class CategoryItemRow {
+    private Long itemId;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    public CategoryItemRow(Long itemId, String name, int price, int stockQuantity) {
+        this.itemId = itemId;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.repository.item;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.Hibernate;
+
+/**
+ * 상품 검색 색인에 넣는 한 건 (item 테이블의 검색 대상 컬럼 + 결과에 보여줄 컬럼)
+ * 재고는 주문마다 바뀌니 색인에 두지 않는다
+ */
+@Getter
+@AllArgsConstructor
+public class ItemSearchDocument {
+    private Long itemId;
+    private String dtype;   // B : Book, A : Album, M : Movie
+    private String name;
+    private int price;
+    private String author;
+    private String isbn;
+    private String artist;
+    private String director;
+    private String actor;
+
+    public static ItemSearchDocument of(Item item) {
+        Object entity = Hibernate.unproxy(item);   // 프록시면 instanceof로 하위 타입을 구분할 수 없다
+        String dtype = null;
+        String author = null, isbn = null, artist = null, director = null, actor = null;
+        if (entity instanceof Book book) {
+            dtype = "B";
+            author = book.getAuthor();
+            isbn = book.getIsbn();
+        } else if (entity instanceof Album album) {
+            dtype = "A";
+            artist = album.getArtist();
+        } else if (entity instanceof Movie movie) {
+            dtype = "M";
+            director = movie.getDirector();
+            actor = movie.getActor();
+        }
+        return new ItemSearchDocument(item.getId(), dtype, item.getName(), item.getPrice(),
+                author, isbn, artist, director, actor);
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.repository.member;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 회원 목록 API에서 골라 받을 수 있는 필드 (id는 커서라서 항상 나간다)
+ */
+public enum MemberField {
+    NAME, ADDRESS;
+
+    /**
+     * "name,address" -> [NAME, ADDRESS] (비어 있으면 전부)
+     */
+    public static Set<MemberField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return EnumSet.allOf(MemberField.class);
+        }
+        Set<MemberField> parsed = EnumSet.noneOf(MemberField.class);
+        for (String field : fields.split(",")) {
+            if (field.isBlank()) {
+                continue;
+            }
+            try {
+                parsed.add(valueOf(field.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("지원하지 않는 필드입니다: " + field.trim(), e);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.repository.member;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jpabook.jpashop.domain.Address;
+import lombok.Data;
+
+/**
+ * 회원 목록 한 줄 : fields로 요청하지 않은 필드는 조회도 안 하고 응답에서도 빠진다 (null이면 생략)
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MemberRow {
+    private Long id;
+    private String name;
+    private Address address;
+
+    public MemberRow(Long id, String name, Address address) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+    }
+}
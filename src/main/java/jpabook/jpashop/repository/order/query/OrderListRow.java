@@ -0,0 +1,35 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면(order/orderList.html) 한 줄 = 주문 + 대표상품 1개
+ */
+@Data
+public class OrderListRow {
+    private Long orderId;
+    private String memberName;
+    private String itemName;     // 대표상품 이름
+    private int orderPrice;      // 대표상품 주문가격
+    private int count;           // 대표상품 주문수량
+    private int totalPrice;      // 주문 총액
+    private int itemCount;       // 주문상품 수
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderListRow(Long orderId, String memberName, String itemName, int orderPrice, int count, int totalPrice, int itemCount,
+                        OrderStatus status, LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.memberName = memberName;
+        this.itemName = itemName;
+        this.orderPrice = orderPrice;
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+}
@@ -0,0 +1,176 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 컬렉션(orderItems)까지 DTO로 바로 조회하는 화면/API 전용 repository
+ * 엔티티로 조회하지 않으니 영속성 컨텍스트에 올라가지도 않고 스냅샷도 안 만든다
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderQueryRepository {
+    private final EntityManager em;
+
+    /**
+     * V5 : 쿼리 2번으로 끝
+     * 1. ToOne 관계(member, delivery)는 join해서 order 한번에 조회 -> row 수 안 늘어남
+     * 2. ToMany 관계(orderItems)는 1에서 얻은 orderId들로 IN 쿼리 한번에 조회
+     * 3. 메모리에서 orderId 기준으로 Map 만들어서 매칭 -> order 개수만큼 orderItems 쿼리 날리는 N+1 없음
+     */
+    public List<OrderQueryDto> findAllByDto_optimization() {
+        List<OrderQueryDto> result = findOrders();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
+
+        return result;
+    }
+
+    /**
+     * V5의 커서 페이징 버전 : 1의 주문 조회만 lastOrderId 다음부터 limit 건으로 자르고 나머지는 같다
+     * @param lastOrderId 이전 페이지의 마지막 order_id (첫 페이지면 null)
+     */
+    public List<OrderQueryDto> findAllByDto_optimization(Long lastOrderId, int limit) {
+        List<OrderQueryDto> result = findOrders(lastOrderId, limit);
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), List.of())));
+
+        return result;
+    }
+
+    private List<Long> toOrderIds(List<OrderQueryDto> result) {
+        return result.stream()
+                .map(OrderQueryDto::getOrderId)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();    // 빈 IN 절은 DB마다 문법 오류가 날 수 있으니 아예 쿼리 안 날린다
+        }
+
+        List<OrderItemQueryDto> orderItems = em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        return orderItems.stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+    }
+
+    /**
+     * V6 : 플랫 데이터로 조회해서 메모리에서 다시 묶기 (주문 + 주문상품까지 쿼리 1번)
+     * 장점 : DB 왕복이 1번
+     * 단점 : 주문 정보가 주문상품 수만큼 중복돼서 전송되고, 애플리케이션에서 다시 묶는 작업이 필요
+     *       row가 주문상품 기준이라 setMaxResults로 바로 자르면 주문이 중간에 잘린다
+     *       -> order_id 기준으로 limit 건의 주문을 고르는 derived table(from 절 서브쿼리)과 join 한다
+     *          in (select ... limit) 서브쿼리는 MySQL이 지원하지 않지만 from 절 서브쿼리의 limit은 된다
+     *          JPQL은 from 절 서브쿼리에 limit을 못 걸어서 네이티브 쿼리로
+     * @param lastOrderId 이전 페이지의 마지막 order_id (첫 페이지면 null)
+     */
+    public List<OrderQueryDto> findAllByDto_flat(Long lastOrderId, int limit) {
+        String sql = "select o.order_id, m.name member_name, o.order_date, o.status, d.city, d.street, d.zipcode," +
+                " o.total_price, o.item_count, i.name item_name, oi.order_price, oi.count" +
+                " from (select order_id from orders" +
+                (lastOrderId != null ? " where order_id > :lastOrderId" : "") +
+                "       order by order_id limit :limit) p" +
+                " join orders o on o.order_id = p.order_id" +
+                " join member m on m.member_id = o.member_id" +
+                " join delivery d on d.delivery_id = o.delivery_id" +
+                " join order_item oi on oi.order_id = o.order_id" +
+                " join item i on i.item_id = oi.item_id" +
+                " order by o.order_id, oi.order_item_id";
+
+        NativeQuery<Object[]> query = em.createNativeQuery(sql).unwrap(NativeQuery.class);
+        query.addScalar("order_id", Long.class)
+                .addScalar("member_name", String.class)
+                .addScalar("order_date", LocalDateTime.class)
+                .addScalar("status", String.class)
+                .addScalar("city", String.class)
+                .addScalar("street", String.class)
+                .addScalar("zipcode", String.class)
+                .addScalar("total_price", Integer.class)
+                .addScalar("item_count", Integer.class)
+                .addScalar("item_name", String.class)
+                .addScalar("order_price", Integer.class)
+                .addScalar("count", Integer.class);
+        query.setParameter("limit", limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+
+        List<OrderFlatDto> flats = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            flats.add(new OrderFlatDto((Long) row[0], (String) row[1], (LocalDateTime) row[2], OrderStatus.valueOf((String) row[3]),
+                    new Address((String) row[4], (String) row[5], (String) row[6]),
+                    (Integer) row[7], (Integer) row[8], (String) row[9], (Integer) row[10], (Integer) row[11]));
+        }
+        return groupByOrder(flats);
+    }
+
+    /**
+     * orderId 순서대로 정렬된 플랫 row들을 주문 하나에 주문상품 목록 형태로 다시 묶는다
+     */
+    private List<OrderQueryDto> groupByOrder(List<OrderFlatDto> flats) {
+        Map<Long, OrderQueryDto> orders = new LinkedHashMap<>();    // 정렬 순서 유지
+        for (OrderFlatDto flat : flats) {
+            OrderQueryDto order = orders.computeIfAbsent(flat.getOrderId(), id -> {
+                OrderQueryDto dto = new OrderQueryDto(id, flat.getName(), flat.getOrderDate(), flat.getOrderStatus(), flat.getAddress(),
+                        flat.getTotalPrice(), flat.getItemCount());
+                dto.setOrderItems(new ArrayList<>());
+                return dto;
+            });
+            order.getOrderItems().add(new OrderItemQueryDto(flat.getOrderId(), flat.getItemName(), flat.getOrderPrice(), flat.getCount()));
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * ToOne 관계들은 한번에 조회
+     */
+    private List<OrderQueryDto> findOrders() {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.itemCount)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d", OrderQueryDto.class)
+                .getResultList();
+    }
+
+    private List<OrderQueryDto> findOrders(Long lastOrderId, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, o.itemCount)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<OrderQueryDto> query = em.createQuery(jpql, OrderQueryDto.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+}
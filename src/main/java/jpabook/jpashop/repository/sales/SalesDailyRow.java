@@ -0,0 +1,36 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 일별 + 상품별 판매 집계 한 줄
+ */
+@Data
+public class SalesDailyRow {
+    private LocalDate salesDate;
+    private Long itemId;
+    private long orderedQuantity;
+    private long orderedLines;
+    private long revenue;
+    private long canceledQuantity;
+    private long canceledLines;
+    private long canceledRevenue;
+    private long netRevenue;        // 매출 - 취소 금액
+    private double cancelRate;      // 취소된 주문상품 건수 / 주문상품 건수
+
+    public SalesDailyRow(LocalDate salesDate, Long itemId, long orderedQuantity, long orderedLines, long revenue,
+                         long canceledQuantity, long canceledLines, long canceledRevenue) {
+        this.salesDate = salesDate;
+        this.itemId = itemId;
+        this.orderedQuantity = orderedQuantity;
+        this.orderedLines = orderedLines;
+        this.revenue = revenue;
+        this.canceledQuantity = canceledQuantity;
+        this.canceledLines = canceledLines;
+        this.canceledRevenue = canceledRevenue;
+        this.netRevenue = revenue - canceledRevenue;
+        this.cancelRate = orderedLines == 0 ? 0 : (double) canceledLines / orderedLines;
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.Data;
+
+/**
+ * 기간 합계 상품별 판매 집계 한 줄
+ */
+@Data
+public class SalesItemRow {
+    private Long itemId;
+    private String itemName;
+    private long orderedQuantity;
+    private long orderedLines;
+    private long revenue;
+    private long canceledQuantity;
+    private long canceledLines;
+    private long canceledRevenue;
+    private long netRevenue;        // 매출 - 취소 금액
+    private double cancelRate;      // 취소된 주문상품 건수 / 주문상품 건수
+
+    // JPQL sum()은 Long으로 나온다
+    public SalesItemRow(Long itemId, String itemName, Long orderedQuantity, Long orderedLines, Long revenue,
+                        Long canceledQuantity, Long canceledLines, Long canceledRevenue) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.orderedQuantity = orderedQuantity;
+        this.orderedLines = orderedLines;
+        this.revenue = revenue;
+        this.canceledQuantity = canceledQuantity;
+        this.canceledLines = canceledLines;
+        this.canceledRevenue = canceledRevenue;
+        this.netRevenue = revenue - canceledRevenue;
+        this.cancelRate = orderedLines == 0 ? 0 : (double) canceledLines / orderedLines;
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.repository.sales;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * (주문일, 상품) 집계 row에 더할 증감 한 묶음 (SalesRollupService가 메모리에 모아뒀다가 한번에 merge)
+ * 불변 : 합칠 때는 plus로 새로 만든다
+ */
+@Getter
+@AllArgsConstructor
+public class SalesRollupDelta {
+    private final long orderedQuantity;
+    private final long orderedLines;
+    private final long revenue;
+    private final long canceledQuantity;
+    private final long canceledLines;
+    private final long canceledRevenue;
+
+    public static SalesRollupDelta ordered(int quantity, long revenue) {
+        return new SalesRollupDelta(quantity, 1, revenue, 0, 0, 0);
+    }
+
+    public static SalesRollupDelta canceled(int quantity, long revenue) {
+        return new SalesRollupDelta(0, 0, 0, quantity, 1, revenue);
+    }
+
+    public SalesRollupDelta plus(SalesRollupDelta other) {
+        return new SalesRollupDelta(
+                orderedQuantity + other.orderedQuantity,
+                orderedLines + other.orderedLines,
+                revenue + other.revenue,
+                canceledQuantity + other.canceledQuantity,
+                canceledLines + other.canceledLines,
+                canceledRevenue + other.canceledRevenue);
+    }
+}
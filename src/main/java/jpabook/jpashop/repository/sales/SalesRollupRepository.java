@@ -0,0 +1,165 @@
+package jpabook.jpashop.repository.sales;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.SalesDailyRollupId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 주문/취소 트랜잭션 안에서 증감을 outbox(sales_rollup_event)에 쌓는다 (insert만, 집계 row lock 없음)
+     */
+    public void appendEvents(Map<SalesDailyRollupId, SalesRollupDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, d) -> args.add(new Object[]{
+                Date.valueOf(key.getSalesDate()), key.getItemId(),
+                d.getOrderedQuantity(), d.getOrderedLines(), d.getRevenue(),
+                d.getCanceledQuantity(), d.getCanceledLines(), d.getCanceledRevenue()}));
+        jdbcTemplate.batchUpdate("insert into sales_rollup_event" +
+                " (sales_date, item_id, ordered_quantity, ordered_lines, revenue, canceled_quantity, canceled_lines, canceled_revenue)" +
+                " values (?, ?, ?, ?, ?, ?, ?, ?)", args);
+    }
+
+    /**
+     * 오래된 outbox 증감 limit 건을 집계에 더하고 지운다 (한 트랜잭션 안에서 호출)
+     * for update : 다른 서버의 flush가 같은 건을 동시에 더하지 못하게 (기다렸다가 지워진 건은 안 보인다)
+     * @return 처리한 건수 (limit보다 적으면 남은 게 없다)
+     */
+    public int foldEvents(int limit) {
+        List<Long> eventIds = new ArrayList<>();
+        Map<SalesDailyRollupId, SalesRollupDelta> deltas = new HashMap<>();
+        jdbcTemplate.query("select event_id, sales_date, item_id, ordered_quantity, ordered_lines, revenue," +
+                        " canceled_quantity, canceled_lines, canceled_revenue" +
+                        " from sales_rollup_event order by event_id limit ? for update",
+                (RowCallbackHandler) rs -> {
+                    eventIds.add(rs.getLong("event_id"));
+                    deltas.merge(new SalesDailyRollupId(rs.getDate("sales_date").toLocalDate(), rs.getLong("item_id")),
+                            new SalesRollupDelta(rs.getLong("ordered_quantity"), rs.getLong("ordered_lines"), rs.getLong("revenue"),
+                                    rs.getLong("canceled_quantity"), rs.getLong("canceled_lines"), rs.getLong("canceled_revenue")),
+                            SalesRollupDelta::plus);
+                }, limit);
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        addAll(deltas);
+        jdbcTemplate.batchUpdate("delete from sales_rollup_event where event_id = ?",
+                eventIds.stream().map(id -> new Object[]{id}).toList());
+        return eventIds.size();
+    }
+
+    /**
+     * [from, to] 주문일의 outbox 증감을 버린다 (rebuild가 주문 데이터에서 이미 다시 계산한 날짜)
+     */
+    public int deleteEvents(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("delete from sales_rollup_event where sales_date between ? and ?",
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * (주문일, 상품) row가 있으면 증감을 더하고 없으면 만든다 : row마다 merge 한번, JDBC batch로 묶어서
+     * 취소는 원래 주문일 row에 쌓인다 (key의 salesDate = 주문일)
+     * 부르는 쪽(foldEvents)이 for update로 한 번에 한 트랜잭션만 지나가니 같은 row를 동시에 처음 insert 하는 일은 없다
+     */
+    private void addAll(Map<SalesDailyRollupId, SalesRollupDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, d) -> args.add(new Object[]{
+                Date.valueOf(key.getSalesDate()), key.getItemId(),
+                d.getOrderedQuantity(), d.getOrderedLines(), d.getRevenue(),
+                d.getCanceledQuantity(), d.getCanceledLines(), d.getCanceledRevenue()}));
+        jdbcTemplate.batchUpdate("merge into sales_daily_rollup r" +
+                " using (select cast(? as date) sales_date, cast(? as bigint) item_id," +
+                "   cast(? as bigint) ordered_quantity, cast(? as bigint) ordered_lines, cast(? as bigint) revenue," +
+                "   cast(? as bigint) canceled_quantity, cast(? as bigint) canceled_lines, cast(? as bigint) canceled_revenue) v" +
+                " on r.sales_date = v.sales_date and r.item_id = v.item_id" +
+                " when matched then update set" +
+                "   ordered_quantity = r.ordered_quantity + v.ordered_quantity," +
+                "   ordered_lines = r.ordered_lines + v.ordered_lines," +
+                "   revenue = r.revenue + v.revenue," +
+                "   canceled_quantity = r.canceled_quantity + v.canceled_quantity," +
+                "   canceled_lines = r.canceled_lines + v.canceled_lines," +
+                "   canceled_revenue = r.canceled_revenue + v.canceled_revenue" +
+                " when not matched then insert" +
+                "   (sales_date, item_id, ordered_quantity, ordered_lines, revenue, canceled_quantity, canceled_lines, canceled_revenue)" +
+                "   values (v.sales_date, v.item_id, v.ordered_quantity, v.ordered_lines, v.revenue, v.canceled_quantity, v.canceled_lines, v.canceled_revenue)",
+                args);
+    }
+
+    /**
+     * [from, to] 기간의 집계를 order_item에서 다시 계산 (기존 row는 지우고 새로)
+     * 집계 테이블을 만들기 전의 주문, 대량 생성(DataGenerator)한 주문처럼 집계를 거치지 않은 데이터 채우기용
+     * @return 만들어진 row 수
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("delete from sales_daily_rollup where sales_date between ? and ?",
+                Date.valueOf(from), Date.valueOf(to));
+        return jdbcTemplate.update(
+                "insert into sales_daily_rollup" +
+                        " (sales_date, item_id, ordered_quantity, ordered_lines, revenue, canceled_quantity, canceled_lines, canceled_revenue)" +
+                        " select cast(o.order_date as date), oi.item_id," +
+                        "   sum(oi.count), count(*), sum(cast(oi.order_price as bigint) * oi.count)," +
+                        "   sum(case when o.status = 'CANCEL' then oi.count else 0 end)," +
+                        "   sum(case when o.status = 'CANCEL' then 1 else 0 end)," +
+                        "   sum(case when o.status = 'CANCEL' then cast(oi.order_price as bigint) * oi.count else 0 end)" +
+                        " from orders o" +
+                        " join order_item oi on oi.order_id = o.order_id" +
+                        " where o.order_date >= ? and o.order_date < ?" +
+                        " group by cast(o.order_date as date), oi.item_id",
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * 일별 + 상품별 (itemId가 null이면 전체 상품)
+     */
+    public List<SalesDailyRow> findDaily(LocalDate from, LocalDate to, Long itemId) {
+        String jpql = "select new jpabook.jpashop.repository.sales.SalesDailyRow(" +
+                "r.salesDate, r.itemId, r.orderedQuantity, r.orderedLines, r.revenue, r.canceledQuantity, r.canceledLines, r.canceledRevenue)" +
+                " from SalesDailyRollup r" +
+                " where r.salesDate between :from and :to";
+        if (itemId != null) {
+            jpql += " and r.itemId = :itemId";
+        }
+        jpql += " order by r.salesDate, r.itemId";
+
+        TypedQuery<SalesDailyRow> query = em.createQuery(jpql, SalesDailyRow.class)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (itemId != null) {
+            query.setParameter("itemId", itemId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 기간 합계 상품별, 순매출(매출 - 취소) 큰 순으로 limit 개
+     */
+    public List<SalesItemRow> findTopItems(LocalDate from, LocalDate to, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.sales.SalesItemRow(" +
+                                "r.itemId, i.name, sum(r.orderedQuantity), sum(r.orderedLines), sum(r.revenue)," +
+                                " sum(r.canceledQuantity), sum(r.canceledLines), sum(r.canceledRevenue))" +
+                                " from SalesDailyRollup r, Item i" +
+                                " where i.id = r.itemId and r.salesDate between :from and :to" +
+                                " group by r.itemId, i.name" +
+                                " order by sum(r.revenue) - sum(r.canceledRevenue) desc", SalesItemRow.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
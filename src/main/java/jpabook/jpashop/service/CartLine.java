@@ -0,0 +1,16 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 장바구니 한 줄 : 상품과 수량
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLine {
+    private Long itemId;
+    private int count;
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.category.CategoryItemCount;
+import jpabook.jpashop.repository.category.CategoryItemRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 카테고리 트리 관리 : parent/child 객체 관계와 클로저 테이블(category_closure)을 항상 같이 바꾼다
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+
+    /**
+     * @param parentId 최상위 카테고리면 null
+     */
+    @Transactional
+    public Long createCategory(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        categoryRepository.insertClosure(category.getId(), parentId);
+        return category.getId();
+    }
+
+    /**
+     * 카테고리를 하위 트리째로 다른 부모 밑으로 (newParentId가 null이면 최상위로)
+     */
+    @Transactional
+    public void moveCategory(Long categoryId, Long newParentId) {
+        Category category = findCategory(categoryId);
+        if (newParentId != null && categoryRepository.isDescendant(categoryId, newParentId)) {
+            throw new IllegalStateException("자기 자신이나 하위 카테고리 밑으로는 옮길 수 없습니다.");
+        }
+
+        if (category.getParent() != null) {
+            category.getParent().getChild().remove(category);
+        }
+        if (newParentId != null) {
+            findCategory(newParentId).addChildCategory(category);
+        } else {
+            category.setParent(null);
+        }
+        categoryRepository.moveClosure(categoryId, newParentId);
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = findCategory(categoryId);
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다.");
+        }
+        category.getItems().add(item);  // 연관관계 주인(category_item)은 Category 쪽, item.categories는 건드리지 않는다 (LAZY 로딩 방지)
+    }
+
+    public List<CategoryItemRow> findSubtreeItems(Long rootId, Long lastItemId, int limit) {
+        return categoryRepository.findSubtreeItems(rootId, lastItemId, limit);
+    }
+
+    public List<CategoryItemCount> countSubtreeItems(Long rootId) {
+        return categoryRepository.countSubtreeItems(rootId);
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다.");
+        }
+        return category;
+    }
+}
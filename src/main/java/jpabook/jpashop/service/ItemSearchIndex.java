@@ -0,0 +1,254 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.item.ItemSearchDocument;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 상품 전문 검색용 메모리 역색인 (DB 안 거침)
+ *
+ * 색인 : 단어 -> (상품 id -> 필드 가중치를 곱한 출현 횟수) posting
+ * 검색 : 검색어 단어들의 posting만 훑어서 TF-IDF 점수를 더하고 상위 offset + limit 개만 heap으로 뽑는다
+ *        흔한 단어(df가 큰 단어)는 idf가 작아서 점수에 덜 기여한다
+ *
+ * 필드 가중치 : 상품명 > 저자/아티스트/감독/배우 > ISBN
+ * 단어 = 소문자로 바꾸고 글자/숫자가 아닌 문자로 자른 것 (ISBN은 '-'를 뺀 전체도 한 단어로 넣는다)
+ *
+ * ItemService.saveItem/updateItem이 커밋된 뒤에 DB에서 다시 읽어서 반영하고(refresh), 서버 뜰 때 item 테이블에서 다시 채운다
+ * 색인은 서버 메모리에만 있으니 다른 서버에서 수정한 상품은 재시작 전까지 모른다
+ */
+@Component
+public class ItemSearchIndex {
+
+    private final float nameBoost;
+    private final float personBoost;
+    private final float isbnBoost;
+
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object[] refreshLocks = new Object[64];
+
+    public ItemSearchIndex(@Value("${jpashop.item-search.boost.name:3.0}") float nameBoost,
+                           @Value("${jpashop.item-search.boost.person:2.0}") float personBoost,
+                           @Value("${jpashop.item-search.boost.isbn:1.0}") float isbnBoost) {
+        this.nameBoost = nameBoost;
+        this.personBoost = personBoost;
+        this.isbnBoost = isbnBoost;
+        for (int i = 0; i < refreshLocks.length; i++) {
+            refreshLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 커밋된 상품을 DB에서 다시 읽어서 색인에 반영한다 (loader가 null이면 지워진 상품이라 색인에서 뺀다)
+     *
+     * 같은 상품을 동시에 수정하면 커밋 순서와 afterCommit 실행 순서가 뒤바뀔 수 있다
+     * -> 엔티티 값을 들고 있다가 넣으면 늦게 실행된 예전 값이 최신 값을 덮어쓴다
+     * -> 상품별로 "다시 읽기 + 넣기"를 한 번에 하나씩만 하고, 읽을 때는 항상 지금 커밋된 값을 읽으니 마지막 refresh가 최신 값을 남긴다
+     * 상품 id별 lock 객체를 따로 두지 않고 stripe로 나눠 쓴다 (id가 다른 상품끼리 가끔 기다리는 정도)
+     */
+    public void refresh(Long itemId, Supplier<ItemSearchDocument> loader) {
+        synchronized (refreshLocks[Math.floorMod(itemId.hashCode(), refreshLocks.length)]) {
+            ItemSearchDocument document = loader.get();
+            if (document == null) {
+                remove(itemId);
+            } else {
+                put(document);
+            }
+        }
+    }
+
+    /**
+     * 색인에 넣거나 이미 있으면 새 값으로 바꾼다
+     */
+    public void put(ItemSearchDocument document) {
+        Map<String, Float> terms = termsOf(document);
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getItemId());
+            add(document, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 없을 때만 넣는다 (서버 기동 시 채우기용)
+     * 채우는 중에 커밋된 수정이 먼저 들어와 있으면 그게 더 최신이니 덮어쓰지 않는다
+     */
+    public void putIfAbsent(ItemSearchDocument document) {
+        Map<String, Float> terms = termsOf(document);
+        lock.writeLock().lock();
+        try {
+            if (!entries.containsKey(document.getItemId())) {
+                add(document, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 점수 높은 순 (같으면 id 작은 순)
+     * 검색어 단어 중 하나라도 들어간 상품이 대상이고, 많이 겹칠수록 점수가 높다
+     */
+    public Page search(String query, int offset, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new Page(0, Collections.emptyList());
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = entries.size();
+            Map<Long, Float> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Float> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (double) documentCount / posting.size());
+                posting.forEach((itemId, weight) -> scores.merge(itemId, weight * idf, Float::sum));
+            }
+
+            // 상위 offset + limit 개만 유지 : heap의 맨 위 = 지금까지 남긴 것 중 가장 낮은 순위
+            Comparator<Map.Entry<Long, Float>> rank = Map.Entry.<Long, Float>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.<Long, Float>comparingByKey());
+            int keep = offset + limit;
+            PriorityQueue<Map.Entry<Long, Float>> top = new PriorityQueue<>(Math.min(keep, scores.size()) + 1, rank.reversed());
+            for (Map.Entry<Long, Float> scored : scores.entrySet()) {
+                if (top.size() < keep) {
+                    top.add(scored);
+                } else if (rank.compare(scored, top.peek()) < 0) {
+                    top.poll();
+                    top.add(scored);
+                }
+            }
+
+            List<Map.Entry<Long, Float>> ranked = new ArrayList<>(top);
+            ranked.sort(rank);
+            List<Hit> hits = new ArrayList<>();
+            for (int i = offset; i < ranked.size(); i++) {
+                Map.Entry<Long, Float> scored = ranked.get(i);
+                ItemSearchDocument document = entries.get(scored.getKey()).document;
+                hits.add(new Hit(document.getItemId(), document.getDtype(), document.getName(), document.getPrice(), scored.getValue()));
+            }
+            return new Page(scores.size(), hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(ItemSearchDocument document, Map<String, Float> terms) {
+        entries.put(document.getItemId(), new Entry(document, terms.keySet()));
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.getItemId(), weight));
+    }
+
+    private void removeInternal(Long itemId) {
+        Entry old = entries.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms) {
+            Map<Long, Float> posting = postings.get(term);
+            posting.remove(itemId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private Map<String, Float> termsOf(ItemSearchDocument document) {
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, document.getName(), nameBoost);
+        addField(terms, document.getAuthor(), personBoost);
+        addField(terms, document.getArtist(), personBoost);
+        addField(terms, document.getDirector(), personBoost);
+        addField(terms, document.getActor(), personBoost);
+        addField(terms, document.getIsbn(), isbnBoost);
+        if (document.getIsbn() != null) {
+            addField(terms, document.getIsbn().replace("-", ""), isbnBoost);
+        }
+        return terms;
+    }
+
+    private void addField(Map<String, Float> terms, String value, float boost) {
+        for (String token : tokenize(value)) {
+            terms.merge(token, boost, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static class Entry {
+        private final ItemSearchDocument document;
+        private final Set<String> terms;
+
+        private Entry(ItemSearchDocument document, Set<String> terms) {
+            this.document = document;
+            this.terms = terms;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+        private Long itemId;
+        private String dtype;
+        private String name;
+        private int price;
+        private float score;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Page {
+        private int total;      // 검색어에 걸린 전체 상품 수
+        private List<Hit> hits;
+    }
+}
@@ -3,9 +3,16 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.SelectOption;
+import jpabook.jpashop.repository.item.ItemSearchDocument;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -14,10 +21,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ObjectProvider<StockLedger> stockLedger;
+    private final ItemSearchIndex itemSearchIndex;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        indexAfterCommit(item);
     }
 
     @Transactional
@@ -31,10 +41,60 @@ public class ItemService {
         Item findItem = itemRepository.findOne(itemId);
         findItem.setName(name);
         findItem.setPrice(price);
-        findItem.setStockQuantity(stockQuantity);
+        StockLedger ledger = stockLedger.getIfAvailable();
+        if (ledger != null) {
+            // 장부가 켜져 있으면 재고는 장부를 통해서만 바꾼다
+            // 엔티티의 stockQuantity는 건드리지 않으니 update에 stock_quantity가 빠진다 (Item @DynamicUpdate) -> flush된 증감을 덮어쓰지 않음
+            ledger.adjustTo(itemId, stockQuantity);
+        } else {
+            findItem.setStockQuantity(stockQuantity);
+        }
 
         // 위의 코드는 ItemRepository에서 saveItem의 em.merge()와 똑같은 동작을 한다
+        indexAfterCommit(findItem);
     }
+
+    /**
+     * 검색 색인 반영은 커밋된 뒤에 (롤백된 변경이 검색에 보이면 안된다)
+     * 색인에 넣을 값은 커밋된 뒤에 DB에서 다시 읽는다
+     * (엔티티 값을 들고 있다가 넣으면 같은 상품 동시 수정 시 afterCommit 순서가 커밋 순서와 달라서 예전 값이 남을 수 있다)
+     */
+    private void indexAfterCommit(Item item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            itemSearchIndex.put(ItemSearchDocument.of(item));
+            return;
+        }
+        Long itemId = item.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                itemSearchIndex.refresh(itemId, () -> itemRepository.findSearchDocument(itemId));
+            }
+        });
+    }
+
+    /**
+     * 서버 뜰 때 item 테이블 전체로 검색 색인 채우기
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpSearchIndex() {
+        itemRepository.forEachSearchDocument(itemSearchIndex::putIfAbsent);
+    }
+
+    /**
+     * 상품 전문 검색 (DB 조회 없이 색인만 본다)
+     */
+    public ItemSearchIndex.Page searchItems(String query, int offset, int limit) {
+        return itemSearchIndex.search(query, offset, limit);
+    }
+
+    /**
+     * 상품명 앞글자로 상품 찾기 (주문 화면 자동완성)
+     */
+    public List<SelectOption> suggestByName(String prefix, int limit) {
+        return itemRepository.findOptionsByNamePrefix(prefix, limit);
+    }
+
     public List<Item> findItems() {
         return itemRepository.findAll();
     }
@@ -0,0 +1,85 @@
+package jpabook.jpashop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 블룸 필터
+ * "없다"고 답하면 진짜 없다 (false negative 없음) -> 가입 시 대부분인 "안 겹치는 이름"은 DB 조회 없이 통과
+ * "있을 수도 있다"고 답하면 그때만 DB에서 확인 (false positive는 fpp 확률로 생김)
+ *
+ * 필터는 서버 메모리에만 있으니 다른 서버에서 가입한 이름은 모른다
+ * -> 최종 중복 방어는 member.name 유니크 제약조건이 한다
+ */
+@Component
+public class MemberNameFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private volatile boolean ready = false;   // 기존 회원 이름을 다 넣기 전에는 "없다"를 믿으면 안된다
+
+    public MemberNameFilter(@Value("${jpashop.member-name-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${jpashop.member-name-filter.fpp:0.01}") double fpp) {
+        long size = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, size);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((bitSize + 63) / 64));
+    }
+
+    public void put(String name) {
+        long[] hashes = hash(name);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            long mask = 1L << (index & 63);
+            bits.getAndAccumulate((int) (index >>> 6), mask, (prev, m) -> prev | m);
+        }
+    }
+
+    public boolean mightContain(String name) {
+        if (!ready) {
+            return true;
+        }
+        long[] hashes = hash(name);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hashes, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 기존 회원 이름을 다 넣은 뒤 호출
+     */
+    public void markReady() {
+        this.ready = true;
+    }
+
+    // double hashing : h1 + i * h2 로 hashCount개의 위치를 만든다
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitSize);
+    }
+
+    // FNV-1a 64bit 결과를 두 번 섞어서 독립적인 해시 두 개로 쓴다
+    private long[] hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h ^ 0x9e3779b97f4a7c15L) | 1;   // 홀수로 만들어서 위치가 한 곳에 몰리지 않게
+        return new long[]{h1, h2};
+    }
+
+    private long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
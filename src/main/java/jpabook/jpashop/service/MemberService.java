@@ -1,14 +1,23 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameTrigramRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.SelectOption;
+import jpabook.jpashop.repository.TableRowEstimator;
+import jpabook.jpashop.repository.member.MemberField;
+import jpabook.jpashop.repository.member.MemberRow;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Transactional(readOnly = true)
@@ -16,6 +25,9 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final MemberNameTrigramRepository memberNameTrigramRepository;
+    private final TableRowEstimator tableRowEstimator;
 
 
     /**
@@ -25,20 +37,38 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member);
         memberRepository.save(member);
+        try {
+            memberRepository.flush();   // 동시에 같은 이름으로 가입하면 여기서 uk_member_name에 걸린다
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameFilter.put(member.getName());
+        memberNameTrigramRepository.replace(member.getId(), member.getName());   // 주문 검색의 회원 이름 부분 검색용
         return member.getId();
     }
 
     /**
      * 중복 회원 검증(이름으로) 로직
+     * 블룸 필터가 "없다"고 하면 DB 조회 생략, "있을 수도 있다"일 때만 존재 여부 쿼리
+     * 동시에 같은 이름으로 가입하는 경우는 name 유니크 제약조건(uk_member_name)이 막아준다 -> join에서 같은 예외로 바꿔서 던진다
      * */
     
     private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if (!findMembers.isEmpty()) {
+        if (memberNameFilter.mightContain(member.getName())
+                && memberRepository.existsByName(member.getName())) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /**
+     * 서버 뜰 때 기존 회원 이름들로 블룸 필터 채우기
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpNameFilter() {
+        memberRepository.forEachName(memberNameFilter::put);
+        memberNameFilter.markReady();
+    }
+
     /**
      * 회원 전체 조회
      * */
@@ -46,6 +76,27 @@ public class MemberService {
         return memberRepository.findAll();
     }
 
+    /**
+     * 회원 목록 한 페이지 (id 순 커서, 요청한 필드만)
+     */
+    public List<MemberRow> findMemberPage(Long lastId, int limit, Set<MemberField> fields) {
+        return memberRepository.findPage(lastId, limit, fields);
+    }
+
+    /**
+     * 전체 회원 수 (count(*) 대신 캐시된 추정치)
+     */
+    public long estimateMemberCount() {
+        return tableRowEstimator.estimate("member");
+    }
+
+    /**
+     * 이름 앞글자로 회원 찾기 (주문 화면 자동완성)
+     */
+    public List<SelectOption> suggestByName(String prefix, int limit) {
+        return memberRepository.findOptionsByNamePrefix(prefix, limit);
+    }
+
     /**
      * 회원 단건 조회
      */
@@ -61,5 +112,7 @@ public class MemberService {
         // 그 때 JPA가 flush(dirty checking) -> 알아서 update query를 DB에 날려줌
         Member member = memberRepository.findOne(id);
         member.setName(name);
+        memberNameFilter.put(name);
+        memberNameTrigramRepository.replace(id, name);
     }
 }
@@ -0,0 +1,218 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 주문 묶음 커밋(group commit) 파이프라인 (jpashop.order-ingestion.enabled=true 일 때만 등록)
+ *
+ * 주문 요청마다 트랜잭션을 따로 커밋하면 커밋(로그 fsync) 비용을 주문 수만큼 낸다
+ * -> 요청은 크기가 정해진 큐에 넣고, 쓰기 스레드 하나가 최대 batch-size 건씩 꺼내서
+ *    트랜잭션 하나 안에서 순서대로 주문 처리(재고 확인 포함) 후 한 번만 커밋한다
+ * -> 커밋이 끝난 뒤에 각 요청자의 CompletableFuture를 주문 id 또는 NotEnoughStockException으로 완료
+ *
+ * 재고 부족은 그 주문만 실패시키고 나머지는 같이 커밋된다 (OrderService.order의 noRollbackFor)
+ * 그 외 예외로 묶음 트랜잭션이 롤백되면, 그 묶음은 주문마다 트랜잭션을 따로 열어서 다시 처리한다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order-ingestion.enabled", havingValue = "true")
+public class OrderIngestionPipeline {
+
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<OrderRequest> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long resultTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean stopped = false;    // 쓰기 스레드가 끝났음 (이후에 큐에 들어온 요청은 처리할 스레드가 없다)
+
+    public OrderIngestionPipeline(OrderService orderService, PlatformTransactionManager transactionManager,
+                                  @Value("${jpashop.order-ingestion.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${jpashop.order-ingestion.batch-size:64}") int batchSize,
+                                  @Value("${jpashop.order-ingestion.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                  @Value("${jpashop.order-ingestion.result-timeout-ms:30000}") long resultTimeoutMillis) {
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.resultTimeoutMillis = resultTimeoutMillis;
+        this.writer = new Thread(this::drainLoop, "order-ingestion-writer");
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * 종료 시 : 새 요청은 받지 않고, 큐에 남은 요청은 다 처리하고 끝낸다
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * 주문 접수
+     * 큐가 가득 차서 offer-timeout-ms 안에 못 넣으면 RejectedExecutionException
+     * 종료 중이면 RejectedExecutionException (쓰기 스레드가 이미 끝난 뒤에 들어간 요청은 도로 꺼내고 거절)
+     */
+    public CompletableFuture<Long> submit(Long memberId, Long itemId, int count) {
+        if (!running) {
+            throw new RejectedExecutionException("주문 접수가 종료되었습니다.");
+        }
+        OrderRequest request = new OrderRequest(memberId, itemId, count);
+        try {
+            if (!queue.offer(request, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("주문 접수 대기열이 가득 찼습니다.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("주문 접수 중 인터럽트", e);
+        }
+        // 쓰기 스레드는 stopped를 세운 뒤에 큐를 비우니, 그 전에 넣은 요청은 거기서 실패 처리되고 그 뒤에 넣은 요청은 여기서 걸린다
+        if (stopped && queue.remove(request)) {
+            throw new RejectedExecutionException("주문 접수가 종료되었습니다.");
+        }
+        return request.result;
+    }
+
+    /**
+     * 접수하고 커밋될 때까지 기다린다 (OrderService.order와 같은 방식으로 쓰기 위해)
+     * 실패 원인(NotEnoughStockException 등)은 감싸지 않고 그대로 던진다
+     * result-timeout-ms 안에 결과가 안 나오면 IllegalStateException (요청 스레드가 무한정 묶이지 않게)
+     * -> 이 경우 주문은 나중에 커밋될 수도 있다
+     */
+    public Long order(Long memberId, Long itemId, int count) {
+        CompletableFuture<Long> result = submit(memberId, itemId, count);
+        try {
+            return result.get(resultTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("주문 처리 결과를 기다리다 시간이 초과되었습니다.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 처리 결과를 기다리던 중 인터럽트", e);
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            drainUntilStopped();
+        } finally {
+            // 인터럽트나 예상 못한 Error로 끝나도 기다리는 요청이 남지 않게
+            stopped = true;
+            List<OrderRequest> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(request -> request.result.completeExceptionally(new RejectedExecutionException("주문 접수가 종료되었습니다.")));
+        }
+    }
+
+    private void drainUntilStopped() {
+        List<OrderRequest> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("order ingestion batch failed. size={}", batch.size(), e);
+                batch.forEach(request -> request.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<OrderRequest> batch) {
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OrderRequest request : batch) {
+                    outcomes.add(orderOrStockFailure(request));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("order ingestion group commit failed, retrying one by one. size={}", batch.size(), e);
+            processOneByOne(batch);
+            return;
+        }
+
+        // 커밋이 끝난 뒤에 완료시킨다 (완료 = DB에 반영됨)
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outcomes.get(i));
+        }
+    }
+
+    private void processOneByOne(List<OrderRequest> batch) {
+        for (OrderRequest request : batch) {
+            try {
+                request.result.complete(orderService.order(request.memberId, request.itemId, request.count));
+            } catch (RuntimeException e) {
+                request.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private Object orderOrStockFailure(OrderRequest request) {
+        try {
+            return orderService.order(request.memberId, request.itemId, request.count);
+        } catch (NotEnoughStockException e) {
+            return e;
+        }
+    }
+
+    private void complete(OrderRequest request, Object outcome) {
+        if (outcome instanceof Throwable failure) {
+            request.result.completeExceptionally(failure);
+        } else {
+            request.result.complete((Long) outcome);
+        }
+    }
+
+    private static final class OrderRequest {
+        private final Long memberId;
+        private final Long itemId;
+        private final int count;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private OrderRequest(Long memberId, Long itemId, int count) {
+            this.memberId = memberId;
+            this.itemId = itemId;
+            this.count = count;
+        }
+    }
+}
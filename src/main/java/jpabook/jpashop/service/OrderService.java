@@ -6,24 +6,37 @@ import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSearchEngine;
+import jpabook.jpashop.repository.order.query.OrderListRow;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
     private final OrderRepository orderRepository;
+    private final OrderSearchEngine orderSearchEngine;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ObjectProvider<StockLedger> stockLedger;  // 설정으로 켰을 때만 존재
+    private final SalesRollupService salesRollupService;
 
     /**
      * 주문
@@ -31,8 +44,10 @@ public class OrderService {
      * @param itemId
      * @param count
      * @return
+     * 재고 부족은 재고 차감(조건부 update 0건 / 장부 예약 실패)에서 아무것도 바꾸기 전에 던지니 롤백할 필요가 없다
+     * -> noRollbackFor : 묶음 커밋(OrderIngestionPipeline)에서 한 주문의 재고 부족이 같은 트랜잭션의 다른 주문까지 롤백시키지 않게
      */
-    @Transactional
+    @Transactional(noRollbackFor = NotEnoughStockException.class)
     public Long order(Long memberId, Long itemId, int count) {
         //엔티티 조회
         Member findMember = memberRepository.findOne(memberId);
@@ -42,8 +57,11 @@ public class OrderService {
         Delivery delivery = new Delivery();
         delivery.setAddress(findMember.getAddress());   //단순화하기 위해 그냥 바로 member의 address 가져온 것
 
+        //재고 차감 : 엔티티에서 빼지 않고 조건부 update 한방으로 (동시 주문 시 초과 판매 방지)
+        removeStock(findItem, count);
+
         //주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(findItem, findItem.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(findItem, findItem.getPrice(), count);
 
         //주문 생성
         Order order = Order.createOrder(findMember, delivery, orderItem);
@@ -51,6 +69,7 @@ public class OrderService {
         //주문 저장 : 원래라면 delivery도 deliveryRepo.save(), orderItem도 orderItemRepo.save() 모두 진행해야 하지만
         // Cascade.ALL 옵션으로 인해 order만 persist()하면 연관된 나머지 것들도 자동으로 persist()된다
         orderRepository.save(order); // -> 이렇게 하나만 persist() 해줘도 delivery, orderItem 모두 자동으로 persist()된다
+        salesRollupService.recordOrder(order);  // 판매 집계 증감은 주문과 같은 트랜잭션에서 outbox에 쌓고 주기적으로 반영
 
         // 그럼 cascade 언제 씀? -> Order가 delivery, orderItems 관리하니깐 사용
         // 즉, Delivery와 OrderItem 모두 Order에서만 참조한다 -> Order만 private한 Owner
@@ -59,6 +78,53 @@ public class OrderService {
 
     }
 
+    /**
+     * 장바구니 주문 : 상품 여러 개를 주문 1건으로
+     * 1. 같은 상품이 여러 줄이면 합치고 item_id 오름차순으로 정렬
+     * 2. 재고 차감을 item_id 오름차순으로 -> 상품이 겹치는 장바구니끼리 row lock을 항상 같은 순서로 잡으니 서로 물고 기다리는 deadlock이 없다
+     *    (A는 1 -> 2, B는 2 -> 1 순서로 잡으면 A는 2를, B는 1을 기다리며 멈춘다)
+     * 3. 차감이 끝난 뒤 상품을 IN 쿼리 한번으로 조회 (상품마다 refresh/find 하지 않는다)
+     * 4. 주문 저장 : orders, delivery, order_item insert는 jdbc.batch_size로 묶여서 나간다
+     * 중간에 재고가 모자라면 NotEnoughStockException -> 트랜잭션 롤백으로 앞에서 차감한 재고도 원복
+     */
+    @Transactional
+    public Long checkout(Long memberId, List<CartLine> lines) {
+        Map<Long, Integer> countByItemId = new TreeMap<>();
+        for (CartLine line : lines) {
+            if (line.getItemId() == null || line.getCount() <= 0) {
+                throw new IllegalArgumentException("주문 수량은 1개 이상이어야 합니다.");
+            }
+            countByItemId.merge(line.getItemId(), line.getCount(), Integer::sum);
+        }
+        if (countByItemId.isEmpty()) {
+            throw new IllegalArgumentException("장바구니가 비어 있습니다.");
+        }
+
+        Member findMember = memberRepository.findOne(memberId);
+        if (findMember == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + memberId);  // 재고를 건드리기 전에
+        }
+
+        countByItemId.forEach(this::removeStockById);
+
+        Map<Long, Item> itemById = itemRepository.findAllByIds(countByItemId.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<OrderItem> orderItems = new ArrayList<>(countByItemId.size());
+        countByItemId.forEach((itemId, count) -> {
+            Item item = itemById.get(itemId);
+            orderItems.add(OrderItem.createReservedOrderItem(item, item.getPrice(), count));
+        });
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(findMember.getAddress());
+
+        Order order = Order.createOrder(findMember, delivery, orderItems.toArray(new OrderItem[0]));
+        orderRepository.save(order);
+        salesRollupService.recordOrder(order);
+        return order.getId();
+    }
+
     /**
      * 주문 취소
      * @param orderId
@@ -67,12 +133,64 @@ public class OrderService {
     public void cancelOrder(Long orderId) {
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
-        //주문 취소
-        order.cancel(); // 엔티티의 비지니스 로직들이 실행함 -> 엔티티 수정으로 JPA가 알아서 각 수정된 table에 update query 날려준다
+        //주문 취소 : 상태 변경은 엔티티에서, 재고 원복은 차감할 때와 마찬가지로 update 한방으로
+        order.changeStatusToCancel();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            addStock(orderItem.getItem(), orderItem.getCount());
+        }
+        salesRollupService.recordCancel(order);
     }
 
-    // 검색
+    /**
+     * 재고 장부(StockLedger)가 켜져 있으면 메모리에서 예약, 아니면 DB에서 조건부 update
+     */
+    private void removeStock(Item item, int count) {
+        StockLedger ledger = stockLedger.getIfAvailable();
+        if (ledger != null) {
+            ledger.reserve(item.getId(), count);
+        } else {
+            itemRepository.removeStock(item, count);
+        }
+    }
+
+    private void removeStockById(Long itemId, int count) {
+        StockLedger ledger = stockLedger.getIfAvailable();
+        if (ledger != null) {
+            ledger.reserve(itemId, count);
+        } else {
+            itemRepository.removeStockById(itemId, count);
+        }
+    }
+
+    private void addStock(Item item, int count) {
+        StockLedger ledger = stockLedger.getIfAvailable();
+        if (ledger != null) {
+            ledger.release(item.getId(), count);
+        } else {
+            itemRepository.addStock(item, count);
+        }
+    }
+
+    // 검색 (최대 jpashop.order-search.max-results 건)
     public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findAllByString(orderSearch);
+        return orderSearchEngine.search(orderSearch, 0, orderSearchEngine.getMaxResults());
+    }
+
+    // 주문 목록 화면용 projection
+    public List<OrderListRow> findOrderListRows(OrderSearch orderSearch) {
+        return orderSearchEngine.searchListRows(orderSearch, 0, orderSearchEngine.getMaxResults());
+    }
+
+    public long countOrders(OrderSearch orderSearch) {
+        return orderSearchEngine.count(orderSearch);
+    }
+
+    /**
+     * 전체 주문 내보내기 (건수 제한 없음)
+     * chunkConsumer는 트랜잭션 안에서 호출되니 그 안에서 LAZY 로딩해도 된다
+     * 대신 chunk 처리가 끝나면 영속성 컨텍스트를 비우니 엔티티를 밖으로 들고 나가면 안된다
+     */
+    public void exportOrders(int chunkSize, Consumer<List<Order>> chunkConsumer) {
+        orderRepository.scrollAllWithMemberDelivery(chunkSize, chunkConsumer);
     }
 }
@@ -0,0 +1,122 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.SalesDailyRollupId;
+import jpabook.jpashop.repository.sales.SalesDailyRow;
+import jpabook.jpashop.repository.sales.SalesItemRow;
+import jpabook.jpashop.repository.sales.SalesRollupDelta;
+import jpabook.jpashop.repository.sales.SalesRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 판매 집계(sales_daily_rollup) 유지 + 조회
+ *
+ * 주문 트랜잭션 안에서 (오늘, 상품) row를 바로 merge 하면 인기 상품 주문이 그 row lock 하나에 줄을 선다 (StockLedger로 없앤 경합이 다시 생김)
+ * -> 주문/취소 트랜잭션 안에서는 증감을 outbox(sales_rollup_event)에 insert만 하고 (주문과 같이 커밋/롤백 -> 서버가 죽어도 유실 없음)
+ *    주기적으로 outbox를 모아서 집계 row에 한번에 merge 한다
+ * 대신 집계는 flush 주기(jpashop.sales-rollup.flush-interval-ms)만큼 늦게 보인다
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class SalesRollupService {
+    private static final int FOLD_BATCH_SIZE = 1000;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate rebuildTemplate;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository, PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 다른 트랜잭션 안에서 불려도 flush는 따로 커밋
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // 다시 계산(rebuild)과 outbox 지우기가 같은 시점의 데이터를 보게 (그 사이에 커밋된 취소가 양쪽에 다 잡히지 않게)
+        this.rebuildTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * 주문 트랜잭션 안에서만 호출 -> 증감이 주문과 같이 커밋된다 (롤백되면 같이 사라짐)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrder(Order order) {
+        LocalDate salesDate = order.getOrderDate().toLocalDate();
+        Map<SalesDailyRollupId, SalesRollupDelta> deltas = new HashMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            // getItem().getId()는 프록시 초기화 없이 id만 꺼낸다
+            deltas.merge(new SalesDailyRollupId(salesDate, orderItem.getItem().getId()),
+                    SalesRollupDelta.ordered(orderItem.getCount(), orderItem.getTotalPrice()), SalesRollupDelta::plus);
+        }
+        salesRollupRepository.appendEvents(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCancel(Order order) {
+        LocalDate salesDate = order.getOrderDate().toLocalDate();
+        Map<SalesDailyRollupId, SalesRollupDelta> deltas = new HashMap<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            deltas.merge(new SalesDailyRollupId(salesDate, orderItem.getItem().getId()),
+                    SalesRollupDelta.canceled(orderItem.getCount(), orderItem.getTotalPrice()), SalesRollupDelta::plus);
+        }
+        salesRollupRepository.appendEvents(deltas);
+    }
+
+    /**
+     * 쌓인 outbox 증감을 sales_daily_rollup에 반영 : FOLD_BATCH_SIZE 건씩 더하고 지우기를 한 트랜잭션으로
+     * 실패하면 그 트랜잭션만 롤백되고 outbox에 그대로 남으니 다음 flush 때 재시도
+     */
+    @Scheduled(initialDelayString = "${jpashop.sales-rollup.flush-interval-ms:1000}", fixedDelayString = "${jpashop.sales-rollup.flush-interval-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)   // 커밋은 transactionTemplate이 따로 한다
+    public synchronized void flush() {
+        try {
+            Integer folded;
+            do {
+                folded = transactionTemplate.execute(status -> salesRollupRepository.foldEvents(FOLD_BATCH_SIZE));
+            } while (folded != null && folded == FOLD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.warn("sales rollup flush failed, will retry", e);
+        }
+    }
+
+    /**
+     * [from, to] 기간 집계를 주문 데이터로 다시 만든다
+     * 같은 트랜잭션(REPEATABLE READ)에서 다시 계산하고 그 날짜의 outbox 증감을 버린다
+     *   - 다시 계산에 잡힌 주문/취소의 증감은 outbox에서도 보이니 같이 지워진다 (두 번 더해지지 않음)
+     *   - 그 뒤에 커밋된 주문/취소는 둘 다 안 보이니 outbox에 남았다가 다음 flush에 더해진다
+     * flush와 같은 lock : 버릴 증감을 flush가 그 사이에 집계에 더하지 못하게
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized int backfill(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("시작일이 종료일보다 늦습니다.");
+        }
+        return rebuildTemplate.execute(status -> {
+            int rows = salesRollupRepository.rebuild(from, to);
+            salesRollupRepository.deleteEvents(from, to);
+            return rows;
+        });
+    }
+
+    public List<SalesDailyRow> findDaily(LocalDate from, LocalDate to, Long itemId) {
+        return salesRollupRepository.findDaily(from, to, itemId);
+    }
+
+    public List<SalesItemRow> findTopItems(LocalDate from, LocalDate to, int limit) {
+        return salesRollupRepository.findTopItems(from, to, limit);
+    }
+}
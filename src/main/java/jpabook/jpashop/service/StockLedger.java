@@ -0,0 +1,278 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 인기 상품 전용 메모리 재고 장부 (jpashop.stock-ledger.enabled=true 일 때만 등록)
+ *
+ * 조건부 update(ItemRepository.removeStock)도 결국 item row 하나에 lock이 걸려서 같은 상품 주문은 줄을 서야 한다
+ * -> 재고를 메모리에서 여러 칸(stripe)으로 쪼개서 들고 있고, 주문 스레드는 CAS로 자기 칸에서 먼저 뺀다 (lock 없음)
+ * -> DB에는 주기적으로 상품별 순증감(delta)만 모아서 batch update 한다 (write-behind)
+ *
+ * 장부가 켜져 있는 동안은 장부가 재고의 기준이다
+ * 재시작하면 처음 접근할 때 item.stock_quantity에서 다시 읽어온다
+ * 단, 비정상 종료되면 마지막 flush 이후의 증감은 DB에 반영되지 못한다 (정상 종료 시에는 @PreDestroy에서 flush)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.stock-ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final int PAD = 8;   // stripe끼리 같은 cache line(64byte = long 8개)을 쓰지 않도록 띄워둔다
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate transactionTemplate;
+    private final int stripes;
+    private final ConcurrentHashMap<Long, ItemStock> stocks = new ConcurrentHashMap<>();
+
+    public StockLedger(JdbcTemplate jdbcTemplate, EntityManagerFactory emf, PlatformTransactionManager transactionManager,
+                       @Value("${jpashop.stock-ledger.stripes:16}") int stripes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emf = emf;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = stripes;
+    }
+
+    /**
+     * 재고 예약(차감)
+     * 현재 트랜잭션이 롤백되면 예약한 만큼 자동으로 되돌린다
+     */
+    public void reserve(Long itemId, int quantity) {
+        ItemStock stock = stockOf(itemId);
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        if (!stock.take(home, quantity)) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        stock.addDelta(home, -quantity);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        releaseNow(itemId, quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 재고 반환(증가) - 주문 취소
+     * 트랜잭션 안이면 커밋된 뒤에 돌려놓는다 (취소가 롤백돼서 주문이 그대로인데 재고만 늘어나면 초과 판매)
+     */
+    public void release(Long itemId, int quantity) {
+        stockOf(itemId);    // 없는 상품이면 커밋 전에 실패하게
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(itemId, quantity);
+                }
+            });
+        } else {
+            releaseNow(itemId, quantity);
+        }
+    }
+
+    /**
+     * 바로 반환 - 예약 롤백, 관리자 재고 수정
+     */
+    private void releaseNow(Long itemId, int quantity) {
+        ItemStock stock = stockOf(itemId);
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        stock.put(home, quantity);
+        stock.addDelta(home, quantity);
+    }
+
+    /**
+     * 관리자가 재고 수량을 직접 수정한 경우 : 장부 기준 현재 재고와의 차이만큼 증감시킨다
+     * (DB 값을 바로 덮어쓰면 아직 flush 안된 예약분이 사라진다)
+     */
+    public void adjustTo(Long itemId, int stockQuantity) {
+        ItemStock stock = stockOf(itemId);
+        long diff = stockQuantity - stock.available();
+        if (diff > 0) {
+            releaseNow(itemId, (int) diff);
+        } else if (diff < 0) {
+            long taken;
+            synchronized (stock) {  // take의 slow path와 같은 lock : 일부만 빼서 들고 있는 동안 가짜 품절이 나지 않게
+                taken = stock.takeUpTo(0, -diff);  // 그 사이에 팔린 만큼은 이미 빠져있다
+            }
+            stock.addDelta(0, -taken);
+        }
+    }
+
+    public long available(Long itemId) {
+        return stockOf(itemId).available();
+    }
+
+    /**
+     * 쌓인 증감을 item 테이블에 반영
+     * 실패하면 뺐던 delta를 다시 돌려놓고 다음 flush 때 재시도
+     * JDBC로 바로 update 하니 커밋된 뒤에 해당 상품들을 2차 캐시에서 지운다 (안 지우면 캐시에 예전 재고가 남는다)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock-ledger.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        stocks.forEach((itemId, stock) -> {
+            long delta = stock.drainDelta();
+            if (delta != 0) {
+                deltas.add(new Object[]{delta, itemId});
+            }
+        });
+
+        for (int from = 0; from < deltas.size(); from += FLUSH_BATCH_SIZE) {
+            List<Object[]> batch = deltas.subList(from, Math.min(from + FLUSH_BATCH_SIZE, deltas.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("update item set stock_quantity = stock_quantity + ? where item_id = ?", batch));
+                batch.forEach(row -> emf.getCache().evict(Item.class, row[1]));
+            } catch (RuntimeException e) {
+                log.warn("stock ledger flush failed, will retry. items={}", batch.size(), e);
+                batch.forEach(row -> stocks.get((Long) row[1]).addDelta(0, (Long) row[0]));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * 처음 접근하는 상품이면 DB 재고로 장부를 만든다 (없는 상품이면 IllegalArgumentException, 장부에 안 남는다)
+     */
+    private ItemStock stockOf(Long itemId) {
+        return stocks.computeIfAbsent(itemId, id -> {
+            List<Integer> persisted = jdbcTemplate.queryForList(
+                    "select stock_quantity from item where item_id = ?", Integer.class, id);
+            if (persisted.isEmpty()) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + id);
+            }
+            return new ItemStock(stripes, persisted.get(0));
+        });
+    }
+
+    /**
+     * 상품 하나의 재고
+     * available : stripe별 남은 재고, 합계가 실제 재고
+     * delta     : stripe별로 DB에 아직 반영 안된 증감
+     */
+    static final class ItemStock {
+        private final int stripes;
+        private final AtomicLongArray available;
+        private final AtomicLongArray delta;
+
+        ItemStock(int stripes, long initial) {
+            this.stripes = stripes;
+            this.available = new AtomicLongArray(stripes * PAD);
+            this.delta = new AtomicLongArray(stripes * PAD);
+            // 처음에는 골고루 나눠 담는다
+            for (int i = 0; i < stripes; i++) {
+                available.set(i * PAD, initial / stripes + (i < initial % stripes ? 1 : 0));
+            }
+        }
+
+        /**
+         * quantity만큼 모두 뺄 수 있으면 true
+         *
+         * fast path : home stripe부터 돌면서 한 stripe에서 quantity를 통째로 CAS로 뺀다 (lock 없음)
+         *             일부만 빼서 들고 있는 순간이 없으니 다른 스레드의 재고 확인을 방해하지 않는다
+         * slow path : 한 stripe에 다 없으면 (재고가 거의 다 팔려서 여러 stripe에 흩어져 있을 때) lock을 잡고 여러 stripe에서 모아 뺀다
+         *             모자라면 뺐던 것을 되돌리고 false
+         *             여러 stripe에서 일부씩 빼서 들고 있는 건 lock을 잡은 한 스레드뿐이라
+         *             그 사이에 다른 스레드가 "합치면 있는데 없다"고 판단하는 일(가짜 품절)이 없다
+         */
+        boolean take(int home, long quantity) {
+            for (int k = 0; k < stripes; k++) {
+                int index = ((home + k) % stripes) * PAD;
+                while (true) {
+                    long current = available.get(index);
+                    if (current < quantity) {
+                        break;
+                    }
+                    if (available.compareAndSet(index, current, current - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            synchronized (this) {
+                long taken = takeUpTo(home, quantity);
+                if (taken < quantity) {
+                    put(home, taken);
+                    return false;
+                }
+                return true;
+            }
+        }
+
+        /**
+         * 여러 stripe에서 최대 quantity까지 빼고 실제로 뺀 양을 돌려준다 (take의 slow path, 관리자 재고 수정)
+         * 일부만 빼서 들고 있는 순간이 있으니 반드시 this lock을 잡고 부른다
+         */
+        long takeUpTo(int home, long quantity) {
+            long remaining = quantity;
+            for (int k = 0; k < stripes && remaining > 0; k++) {
+                int index = ((home + k) % stripes) * PAD;
+                while (true) {
+                    long current = available.get(index);
+                    if (current <= 0) {
+                        break;
+                    }
+                    long got = Math.min(current, remaining);
+                    if (available.compareAndSet(index, current, current - got)) {
+                        remaining -= got;
+                        break;
+                    }
+                }
+            }
+            return quantity - remaining;
+        }
+
+        void put(int home, long quantity) {
+            available.addAndGet(home * PAD, quantity);
+        }
+
+        void addDelta(int home, long quantity) {
+            delta.addAndGet(home * PAD, quantity);
+        }
+
+        long drainDelta() {
+            long sum = 0;
+            for (int i = 0; i < stripes; i++) {
+                sum += delta.getAndSet(i * PAD, 0);   // stripe 하나씩 원자적으로 비우니 유실 없음
+            }
+            return sum;
+        }
+
+        long available() {
+            long sum = 0;
+            for (int i = 0; i < stripes; i++) {
+                sum += available.get(i * PAD);
+            }
+            return sum;
+        }
+    }
+}
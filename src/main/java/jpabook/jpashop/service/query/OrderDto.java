@@ -0,0 +1,41 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * OrderQueryService가 트랜잭션 안에서 다 채워서 넘겨주는 주문 DTO
+ * (OSIV를 끄면 컨트롤러에서는 더이상 LAZY 로딩을 할 수 없으니 변환은 서비스 계층에서)
+ */
+@Getter
+public class OrderDto {
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+    private int totalPrice;
+    private int itemCount;
+    // OrderDto 안에 entity(OrderItem) 있으면 안된다 -> OrderItem entity 정보들이 외부로 노출된다
+    private List<OrderItemDto> orderItems;
+    // OrderItem -> OrderItemDto로 또 감싸자
+
+    public OrderDto(Order order) {
+        orderId = order.getId();
+        name = order.getMember().getName();
+        orderDate = order.getOrderDate();
+        orderStatus = order.getStatus();
+        address = order.getDelivery().getAddress();
+        totalPrice = order.getTotalPrice();
+        itemCount = order.getItemCount();
+        orderItems = order.getOrderItems().stream()
+                .map(orderItem -> new OrderItemDto(orderItem))
+                .collect(Collectors.toList());
+    }
+}
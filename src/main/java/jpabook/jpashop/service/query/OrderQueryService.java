@@ -0,0 +1,106 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 조회 전용 서비스 (OSIV OFF 대응)
+ * OSIV를 끄면 트랜잭션이 끝날 때 영속성 컨텍스트도 닫히고 DB 커넥션도 바로 반납된다
+ * -> 컨트롤러, JSON 직렬화, 화면 렌더링 중에는 LAZY 로딩을 할 수 없으니
+ *    트랜잭션 안에서 필요한 연관관계를 다 초기화하고 DTO로 완성해서 넘긴다
+ * 핵심 비지니스 로직(OrderService)과 화면/API에 맞춘 조회 로직을 분리하는 효과도 있다
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderQueryService {
+    private final OrderRepository orderRepository;
+
+    /**
+     * 엔티티 그대로 반환 (v1) : 트랜잭션 안에서 강제 초기화까지 끝내고 넘긴다
+     */
+    public List<Order> ordersV1() {
+        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        for (Order order : all) {
+            order.getMember().getName();
+            order.getDelivery().getAddress();
+            order.getOrderItems().forEach(orderItem -> orderItem.getItem().getName());
+        }
+        return all;
+    }
+
+    public List<OrderDto> ordersV2() {
+        return toOrderDtos(orderRepository.findAllByString(new OrderSearch()));
+    }
+
+    public List<OrderDto> ordersV3() {
+        return toOrderDtos(orderRepository.findAllWithItem());
+    }
+
+    /**
+     * v3의 한 페이지 (컬렉션 fetch join은 주문 id를 먼저 골라서 자른다)
+     */
+    public List<OrderDto> ordersV3(Long lastOrderId, int limit) {
+        return toOrderDtos(orderRepository.findAllWithItem(lastOrderId, limit));
+    }
+
+    public List<OrderDto> ordersV3_page(int offset, int limit) {
+        return toOrderDtos(orderRepository.findAllWithMemberDelivery(offset, limit));
+    }
+
+    public List<OrderDto> ordersV3_cursor(Long lastOrderId, int limit) {
+        return toOrderDtos(orderRepository.findAllWithMemberDeliveryAfter(lastOrderId, limit));
+    }
+
+    /**
+     * simple-orders v1 : 엔티티 그대로 반환, member와 delivery만 초기화
+     */
+    public List<Order> simpleOrdersV1() {
+        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        for (Order order : all) {
+            order.getMember().getName();    // LAZY 강제 초기화
+            order.getDelivery().getAddress();   // LAZY 강제 초기화
+        }
+        return all;
+    }
+
+    /**
+     * simple-orders v2 : N+1 발생 (order 1번 + member N번 + delivery N번)
+     */
+    public List<SimpleOrderDto> simpleOrdersV2() {
+        return toSimpleOrderDtos(orderRepository.findAllByString(new OrderSearch()));
+    }
+
+    /**
+     * simple-orders v3 : fetch join으로 쿼리 1번
+     */
+    public List<SimpleOrderDto> simpleOrdersV3() {
+        return toSimpleOrderDtos(orderRepository.findAllWithMemberDelivery());
+    }
+
+    /**
+     * simple-orders v3의 한 페이지 : fetch join + 커서 페이징
+     */
+    public List<SimpleOrderDto> simpleOrdersV3(Long lastOrderId, int limit) {
+        return toSimpleOrderDtos(orderRepository.findAllWithMemberDeliveryAfter(lastOrderId, limit));
+    }
+
+    private List<OrderDto> toOrderDtos(List<Order> orders) {
+        return orders.stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList());
+    }
+
+    private List<SimpleOrderDto> toSimpleOrderDtos(List<Order> orders) {
+        return orders.stream()
+                .map(SimpleOrderDto::new)
+                .collect(Collectors.toList());
+    }
+}
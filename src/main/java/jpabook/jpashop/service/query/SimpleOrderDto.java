@@ -0,0 +1,30 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class SimpleOrderDto {
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private Address address;
+    private int totalPrice;     // orders 컬럼이라 orderItems 로딩 없음
+    private int itemCount;
+
+    public SimpleOrderDto(Order order) {
+        orderId = order.getId();
+        // LAZY 초기화 : getMember()에서 memberId로 영속성 컨텍스트를 뒤짐 -> 없으면 DB에 쿼리
+        name = order.getMember().getName();
+        orderDate = order.getOrderDate();
+        orderStatus = order.getStatus();
+        address = order.getDelivery().getAddress();     // LAZY 초기화
+        totalPrice = order.getTotalPrice();
+        itemCount = order.getItemCount();
+    }
+}
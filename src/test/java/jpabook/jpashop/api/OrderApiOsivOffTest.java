@@ -0,0 +1,74 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * OSIV를 끈 상태(운영 설정)에서 엔티티를 조회해서 DTO로 바꾸는 API가 LazyInitializationException 없이 응답하는지
+ * 테스트 설정(src/test/resources/application.yml)에는 open-in-view가 없어서 기본값(켜짐)이니 여기서 끈다
+ * 요청마다 트랜잭션이 따로 끝나야 하니 @Transactional 붙이지 않는다
+ */
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class OrderApiOsivOffTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    private String memberName;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        Member member = new Member();
+        memberName = "osiv-off-" + System.nanoTime();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("OSIV BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        orderId = orderService.order(memberId, book.getId(), 2);
+    }
+
+    @Test
+    void 간단주문조회_v2_v3() throws Exception {
+        for (String url : new String[]{"/api/v2/simple-orders", "/api/v3/simple-orders"}) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[*].name", hasItem(memberName)));  // member LAZY 로딩까지 끝난 값
+        }
+    }
+
+    @Test
+    void 주문조회_v2_v3() throws Exception {
+        for (String url : new String[]{"/api/v2/orders", "/api/v3/orders"}) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].orderId", hasItem(orderId.intValue())))
+                    .andExpect(jsonPath("$[*].name", hasItem(memberName)))
+                    .andExpect(jsonPath("$[*].orderItems[*].itemName", hasItem("OSIV BOOK")));    // orderItems, item LAZY 로딩까지
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 커서/limit/fields 파라미터를 잘못 보내면 500이 아니라 400이거나 허용 범위로 맞춰진다
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PagingParameterTest {
+
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    void 잘못된_커서는_400() throws Exception {
+        for (String url : new String[]{"/api/v3.2/orders", "/api/v6/orders", "/api/v3/members", "/api/categories/1/items"}) {
+            mockMvc.perform(get(url).param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void 모르는_필드는_400() throws Exception {
+        mockMvc.perform(get("/api/v3/members").param("fields", "name,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void limit이_0이하여도_500이_아니다() throws Exception {
+        for (String url : new String[]{"/api/v3.1/orders", "/api/v3.2/orders", "/api/v6/orders"}) {
+            mockMvc.perform(get(url).param("limit", "0"))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get(url).param("limit", "-1"))
+                    .andExpect(status().isOk());
+        }
+    }
+}
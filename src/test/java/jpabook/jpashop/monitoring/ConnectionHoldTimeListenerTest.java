@@ -0,0 +1,96 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ConnectionHoldTimeListenerTest {
+
+    private final ConnectionHoldTimeListener listener = new ConnectionHoldTimeListener();
+
+    @AfterEach
+    void tearDown() {
+        RequestJdbcContext.end();
+    }
+
+    @Test
+    void 커넥션을_빌려서_반납할때까지_시간이_요청에_쌓인다() throws Exception {
+        //given
+        RequestJdbcContext context = RequestJdbcContext.begin();
+        ConnectionInformation first = mock(ConnectionInformation.class);
+        ConnectionInformation second = mock(ConnectionInformation.class);
+
+        //when : 커넥션 두 번 빌리고 반납
+        listener.onAfterGetConnection(first, null);
+        Thread.sleep(5);
+        listener.onAfterConnectionClose(first, null);
+        listener.onAfterGetConnection(second, null);
+        listener.onAfterConnectionClose(second, null);
+
+        //then
+        assertThat(context.getConnectionCount()).isEqualTo(2);
+        assertThat(context.getConnectionHoldNanos()).isGreaterThanOrEqualTo(5_000_000L);
+    }
+
+    @Test
+    void 획득에_실패한_커넥션은_세지_않는다() {
+        //given
+        RequestJdbcContext context = RequestJdbcContext.begin();
+        ConnectionInformation connection = mock(ConnectionInformation.class);
+
+        //when
+        listener.onAfterGetConnection(connection, new SQLException("pool exhausted"));
+        listener.onAfterConnectionClose(connection, null);
+
+        //then
+        assertThat(context.getConnectionCount()).isZero();
+        assertThat(context.getConnectionHoldNanos()).isZero();
+    }
+
+    @Test
+    void 요청_밖에서_반납된_커넥션은_무시한다() {
+        //given : 스케줄러 같은 요청 밖 스레드
+        ConnectionInformation connection = mock(ConnectionInformation.class);
+
+        //when
+        listener.onAfterGetConnection(connection, null);
+        listener.onAfterConnectionClose(connection, null);
+
+        //then : 그 뒤에 시작한 요청에는 안 잡힌다
+        RequestJdbcContext context = RequestJdbcContext.begin();
+        listener.onAfterConnectionClose(connection, null);
+        assertThat(context.getConnectionCount()).isZero();
+    }
+
+    @Test
+    void 핸들러별_평균_최대_hold_time_평균이_큰_순() {
+        //given
+        JdbcMonitoringStats stats = new JdbcMonitoringStats();
+
+        //when
+        stats.record("GET /fast", contextHolding(1_000_000L));
+        stats.record("GET /slow", contextHolding(10_000_000L));
+        stats.record("GET /slow", contextHolding(30_000_000L));
+
+        //then
+        List<JdbcMonitoringStats.ConnectionHoldSnapshot> snapshot = stats.connectionHoldSnapshot();
+        assertThat(snapshot).extracting(JdbcMonitoringStats.ConnectionHoldSnapshot::getHandler)
+                .containsExactly("GET /slow", "GET /fast");
+        JdbcMonitoringStats.ConnectionHoldSnapshot slow = snapshot.get(0);
+        assertThat(slow.getRequests()).isEqualTo(2);
+        assertThat(slow.getAvgHoldMillis()).isEqualTo(20.0);
+        assertThat(slow.getMaxHoldMillis()).isEqualTo(30.0);
+    }
+
+    private RequestJdbcContext contextHolding(long nanos) {
+        RequestJdbcContext context = new RequestJdbcContext();
+        context.addConnectionHold(nanos);
+        return context;
+    }
+}
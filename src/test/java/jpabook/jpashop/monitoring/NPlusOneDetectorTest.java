@@ -0,0 +1,69 @@
+package jpabook.jpashop.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NPlusOneDetectorTest {
+
+    private static final String HANDLER = "GET /api/v2/simple-orders";
+
+    private final NPlusOneDetector detector = new NPlusOneDetector(5);
+
+    @Test
+    void 같은_모양_select가_threshold번_이상이면_의심() {
+        //given : order 1번 + member를 주문 수만큼
+        RequestJdbcContext context = new RequestJdbcContext();
+        context.countStatement("select * from orders");
+        for (long id = 1; id <= 5; id++) {
+            context.countStatement("select * from member where member_id = ?");
+        }
+
+        //when
+        detector.inspect(HANDLER, context);
+
+        //then
+        assertThat(detector.snapshot()).containsEntry(HANDLER, 1L);
+    }
+
+    @Test
+    void threshold_미만이면_의심하지_않는다() {
+        RequestJdbcContext context = new RequestJdbcContext();
+        for (int i = 0; i < 4; i++) {
+            context.countStatement("select * from member where member_id = ?");
+        }
+
+        detector.inspect(HANDLER, context);
+
+        assertThat(detector.snapshot()).isEmpty();
+    }
+
+    @Test
+    void 배치_로딩_IN_쿼리는_여러번_나가도_의심하지_않는다() {
+        //given : default_batch_fetch_size 단위로 나눠 읽는 IN 쿼리 6번
+        RequestJdbcContext context = new RequestJdbcContext();
+        for (int i = 0; i < 6; i++) {
+            context.countStatement("select * from order_item where order_id in (?, ?, ?, ?)");
+        }
+
+        //when
+        detector.inspect(HANDLER, context);
+
+        //then
+        assertThat(detector.snapshot()).isEmpty();
+        assertThat(context.getStatementCount()).isEqualTo(6);   // 실행 횟수는 그대로 센다
+    }
+
+    @Test
+    void 의심_요청_횟수는_핸들러별로_쌓인다() {
+        for (int request = 0; request < 3; request++) {
+            RequestJdbcContext context = new RequestJdbcContext();
+            for (int i = 0; i < 5; i++) {
+                context.countStatement("select * from delivery where delivery_id = ?");
+            }
+            detector.inspect(HANDLER, context);
+        }
+
+        assertThat(detector.snapshot()).containsEntry(HANDLER, 3L);
+    }
+}
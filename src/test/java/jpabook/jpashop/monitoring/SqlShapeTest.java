@@ -0,0 +1,36 @@
+package jpabook.jpashop.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapeTest {
+
+    @Test
+    void 공백과_대소문자_차이는_같은_모양() {
+        assertThat(SqlShape.of("  SELECT m.name\n  FROM member m\twhere m.member_id = ?  "))
+                .isEqualTo("select m.name from member m where m.member_id = ?");
+    }
+
+    @Test
+    void IN_목록_길이가_달라도_같은_모양() {
+        String three = SqlShape.of("select * from item where item_id in (?, ?, ?)");
+        String one = SqlShape.of("select * from item where item_id IN(?)");
+
+        assertThat(three).isEqualTo("select * from item where item_id in (?)");
+        assertThat(one).isEqualTo(three);
+    }
+
+    @Test
+    void null은_빈_모양() {
+        assertThat(SqlShape.of(null)).isEmpty();
+    }
+
+    @Test
+    void IN_목록에_바인드가_여러개면_배치_로딩() {
+        assertThat(SqlShape.isBatchLoad("select * from member where member_id in (?,?,?)")).isTrue();
+        assertThat(SqlShape.isBatchLoad("select * from member where member_id = any (?)")).isTrue();
+        assertThat(SqlShape.isBatchLoad("select * from member where member_id in (?)")).isFalse();
+        assertThat(SqlShape.isBatchLoad("select * from member where member_id = ?")).isFalse();
+    }
+}
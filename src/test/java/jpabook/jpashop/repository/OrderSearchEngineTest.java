@@ -0,0 +1,122 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 회원 이름 검색이 trigram 후보로 좁히지 못하고 like로 돌아가는 경우
+ */
+@SpringBootTest(properties = "jpashop.order-search.max-member-candidates=1")
+@Transactional
+class OrderSearchEngineTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderSearchEngine orderSearchEngine;
+    @Autowired MemberNameTrigramRepository memberNameTrigramRepository;
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+
+    @Test
+    void 후보가_너무_많으면_like로_검색한다() {
+        //given : 검색어를 가진 회원 2명 > max-member-candidates(1)
+        String token = uniqueToken();
+        Member first = joinMember(token + "x");
+        Member second = joinMember("y" + token);
+        Book book = createBook();
+        Long firstOrderId = orderService.order(first.getId(), book.getId(), 1);
+        Long secondOrderId = orderService.order(second.getId(), book.getId(), 1);
+
+        //when
+        List<Long> candidates = memberNameTrigramRepository.findCandidateMemberIds(token, 1, 10000);
+        List<Order> orders = orderSearchEngine.search(searchOf(token), 0, 100);
+
+        //then
+        assertThat(candidates).isNull();
+        assertThat(orders).extracting(Order::getId).containsExactly(secondOrderId, firstOrderId);
+    }
+
+    @Test
+    void 검색어가_3글자보다_짧으면_like로_검색한다() {
+        //given
+        Member hit = joinMember(uniqueToken() + "!q");
+        Member miss = joinMember(uniqueToken() + "q!");
+        Book book = createBook();
+        Long hitOrderId = orderService.order(hit.getId(), book.getId(), 1);
+        orderService.order(miss.getId(), book.getId(), 1);
+
+        OrderSearch orderSearch = searchOf("!q");
+        orderSearch.setItemId(book.getId());    // 이 테스트의 주문만
+
+        //when
+        List<Order> orders = orderSearchEngine.search(orderSearch, 0, 100);
+
+        //then
+        assertThatThrownBy(() -> memberNameTrigramRepository.findCandidateMemberIds("!q", 1, 10000))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(orders).extracting(Order::getId).containsExactly(hitOrderId);
+    }
+
+    @Test
+    void 흔한_조각은_건너뛰고_나머지_조각으로_좁힌다() {
+        //given : token의 조각은 두 회원 모두 가졌고(흔함), token + "x" 끝 조각은 한 회원만 가졌다
+        String token = uniqueToken();
+        Member hit = joinMember(token + "x");
+        joinMember(token + "y");
+
+        //when : 조각당 posting 1건까지만 쓴다
+        List<Long> narrowed = memberNameTrigramRepository.findCandidateMemberIds(token + "x", 10, 1);
+        List<Long> allCommon = memberNameTrigramRepository.findCandidateMemberIds(token, 10, 1);
+
+        //then
+        assertThat(narrowed).containsExactly(hit.getId());
+        assertThat(allCommon).isNull();
+    }
+
+    /**
+     * 다른 테스트 회원 이름과 조각이 겹치지 않도록 숫자 대신 글자로 (nanoTime 0~9 -> a~j)
+     */
+    private String uniqueToken() {
+        StringBuilder sb = new StringBuilder("tg");
+        for (char c : String.valueOf(System.nanoTime()).toCharArray()) {
+            sb.append((char) ('a' + (c - '0')));
+        }
+        return sb.toString();
+    }
+
+    private OrderSearch searchOf(String memberName) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(memberName);
+        return orderSearch;
+    }
+
+    private Member joinMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setName("SEARCH BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,154 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class OrderQueryRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    private static final int ORDER_COUNT = 200;
+
+    @BeforeEach
+    void setUp() {
+        Book book1 = createBook("JPA1 BOOK", 10000);
+        Book book2 = createBook("JPA2 BOOK", 20000);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Member member = new Member();
+            member.setName("flat-member" + i);
+            member.setAddress(new Address("서울", "강남구", "15640"));
+            em.persist(member);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book1, 10000, 1),
+                    OrderItem.createOrderItem(book2, 20000, 2));
+            em.persist(order);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void 플랫조회_페이징결과는_V5와_같다() {
+        //given
+        List<OrderQueryDto> v5 = orderQueryRepository.findAllByDto_optimization();
+
+        //when : 커서로 끝까지 넘기면서 모으기
+        List<OrderQueryDto> v6 = new ArrayList<>();
+        Long lastOrderId = null;
+        while (true) {
+            List<OrderQueryDto> page = orderQueryRepository.findAllByDto_flat(lastOrderId, 30);
+            v6.addAll(page);
+            if (page.size() < 30) {
+                break;
+            }
+            lastOrderId = page.get(page.size() - 1).getOrderId();
+        }
+
+        //then
+        assertThat(v6).hasSizeGreaterThanOrEqualTo(ORDER_COUNT).hasSameSizeAs(v5);   // 다른 테스트가 커밋한 주문도 있을 수 있다
+        assertThat(v6).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyInAnyOrderElementsOf(v5);
+    }
+
+    @Test
+    void 플랫조회는_한페이지를_쿼리_한번으로() {
+        //given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        List<OrderQueryDto> page = orderQueryRepository.findAllByDto_flat(null, 30);
+
+        //then
+        assertThat(page).hasSize(30);
+        assertThat(page).allSatisfy(order -> assertThat(order.getOrderItems()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    /**
+     * V3(컬렉션 fetch join), V5(IN 쿼리), V6(플랫) 모두 같은 주문/주문상품을 돌려준다
+     * 속도 비교는 JMH(src/jmh OrderFetchBenchmark)에서 한다
+     */
+    @Test
+    void 조회전략별_결과가_같다() {
+        //given
+        List<OrderQueryDto> v3 = orderRepository.findAllWithItem().stream()
+                .map(this::toQueryDto)
+                .toList();
+        em.clear();
+
+        //when
+        List<OrderQueryDto> v5 = orderQueryRepository.findAllByDto_optimization();
+        List<OrderQueryDto> v6 = orderQueryRepository.findAllByDto_flat(null, v5.size());
+
+        //then
+        assertThat(v3).hasSameSizeAs(v5);
+        assertThat(v5).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(v3);
+        assertThat(v6).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(v3);
+    }
+
+    /**
+     * 벤치마크가 쓰는 한 페이지 버전(V3, V5)도 V6 같은 페이지와 결과가 같다
+     */
+    @Test
+    void 한페이지_조회전략별_결과가_같다() {
+        //given : 앞쪽 10건을 건너뛴 다음 페이지
+        Long lastOrderId = orderQueryRepository.findAllByDto_flat(null, 10).get(9).getOrderId();
+        em.clear();
+
+        //when
+        List<OrderQueryDto> v3 = orderRepository.findAllWithItem(lastOrderId, 50).stream()
+                .map(this::toQueryDto)
+                .toList();
+        em.clear();
+        List<OrderQueryDto> v5 = orderQueryRepository.findAllByDto_optimization(lastOrderId, 50);
+        List<OrderQueryDto> v6 = orderQueryRepository.findAllByDto_flat(lastOrderId, 50);
+
+        //then
+        assertThat(v6).hasSize(50);
+        assertThat(v3).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(v6);
+        assertThat(v5).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(v6);
+    }
+
+    private OrderQueryDto toQueryDto(Order order) {
+        OrderQueryDto dto = new OrderQueryDto(order.getId(), order.getMember().getName(), order.getOrderDate(), order.getStatus(),
+                order.getDelivery().getAddress(), order.getTotalPrice(), order.getItemCount());
+        dto.setOrderItems(order.getOrderItems().stream()
+                .map(oi -> new OrderItemQueryDto(order.getId(), oi.getItem().getName(), oi.getOrderPrice(), oi.getCount()))
+                .toList());
+        return dto;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(ORDER_COUNT * 10);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,88 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.category.CategoryItemCount;
+import jpabook.jpashop.repository.category.CategoryItemRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired ItemService itemService;
+
+    @Test
+    void 하위트리_상품을_한번에_조회() {
+        //given : 도서 > IT > JPA, 도서 > 소설
+        Long books = categoryService.createCategory("도서", null);
+        Long it = categoryService.createCategory("IT", books);
+        Long jpa = categoryService.createCategory("JPA", it);
+        Long novel = categoryService.createCategory("소설", books);
+
+        Long jpaBook = createBook("JPA BOOK");
+        Long springBook = createBook("SPRING BOOK");
+        Long novelBook = createBook("NOVEL BOOK");
+        categoryService.addItem(jpa, jpaBook);
+        categoryService.addItem(it, springBook);
+        categoryService.addItem(it, jpaBook);      // 같은 상품이 하위 트리 여러 곳에
+        categoryService.addItem(novel, novelBook);
+
+        //when
+        List<CategoryItemRow> all = categoryService.findSubtreeItems(books, null, 100);
+        List<CategoryItemRow> firstPage = categoryService.findSubtreeItems(books, null, 2);
+        List<CategoryItemRow> secondPage = categoryService.findSubtreeItems(books, firstPage.get(1).getItemId(), 2);
+        List<CategoryItemCount> counts = categoryService.countSubtreeItems(books);
+
+        //then
+        assertThat(all).extracting(CategoryItemRow::getItemId).containsExactly(jpaBook, springBook, novelBook);
+        assertThat(secondPage).extracting(CategoryItemRow::getItemId).containsExactly(novelBook);
+        assertThat(counts).extracting(CategoryItemCount::getCategoryId, CategoryItemCount::getDepth, CategoryItemCount::getItemCount)
+                .containsExactly(
+                        tuple(books, 0, 3L),
+                        tuple(it, 1, 2L),
+                        tuple(novel, 1, 1L),
+                        tuple(jpa, 2, 1L));
+        assertThat(categoryService.findSubtreeItems(it, null, 100))
+                .extracting(CategoryItemRow::getItemId).containsExactly(jpaBook, springBook);
+    }
+
+    @Test
+    void 카테고리_이동하면_하위트리도_같이_옮겨진다() {
+        //given
+        Long books = categoryService.createCategory("도서", null);
+        Long it = categoryService.createCategory("IT", books);
+        Long jpa = categoryService.createCategory("JPA", it);
+        Long ebooks = categoryService.createCategory("전자책", null);
+        Long jpaBook = createBook("JPA BOOK");
+        categoryService.addItem(jpa, jpaBook);
+
+        //when
+        categoryService.moveCategory(it, ebooks);
+
+        //then
+        assertThat(categoryService.findSubtreeItems(books, null, 100)).isEmpty();
+        assertThat(categoryService.findSubtreeItems(ebooks, null, 100))
+                .extracting(CategoryItemRow::getItemId).containsExactly(jpaBook);
+        assertThatThrownBy(() -> categoryService.moveCategory(ebooks, jpa))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,103 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.item.ItemSearchDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ItemSearchIndexTest {
+
+    @Autowired ItemService itemService;
+    @Autowired ItemSearchIndex itemSearchIndex;
+
+    @Test
+    void 저장_수정이_커밋되면_검색에_반영된다() {
+        //given : 이름에 걸린 상품이 저자에 걸린 상품보다 위
+        String word = "zqx" + System.nanoTime();
+        Book byAuthor = new Book();
+        byAuthor.setName("JPA 프로그래밍");
+        byAuthor.setAuthor(word);
+        byAuthor.setIsbn("978-89-0000-000-1");
+        itemService.saveItem(byAuthor);
+
+        Album byName = new Album();
+        byName.setName(word + " 앨범");
+        byName.setArtist("someone");
+        itemService.saveItem(byName);
+
+        //when
+        ItemSearchIndex.Page page = itemService.searchItems(word.toUpperCase(), 0, 10);
+
+        //then
+        assertThat(page.getTotal()).isEqualTo(2);
+        assertThat(page.getHits()).extracting(ItemSearchIndex.Hit::getItemId)
+                .containsExactly(byName.getId(), byAuthor.getId());
+        assertThat(itemService.searchItems(word, 1, 10).getHits()).extracting(ItemSearchIndex.Hit::getItemId)
+                .containsExactly(byAuthor.getId());
+        assertThat(itemService.searchItems("9788900000001", 0, 10).getHits()).extracting(ItemSearchIndex.Hit::getItemId)
+                .contains(byAuthor.getId());
+
+        //when : 이름을 바꾸면 예전 단어로는 안 나온다
+        itemService.updateItem(byName.getId(), "renamed " + byName.getId(), 1000, 0);
+
+        //then
+        assertThat(itemService.searchItems(word, 0, 10).getHits()).extracting(ItemSearchIndex.Hit::getItemId)
+                .containsExactly(byAuthor.getId());
+    }
+
+    @Test
+    void 같은_상품_refresh는_순서대로_최신값을_남긴다() throws Exception {
+        //given : 먼저 커밋된 수정의 refresh가 예전 값을 읽은 채로 늦게 넣으려는 상황
+        Long itemId = -System.nanoTime();   // 실제 상품과 겹치지 않는 id
+        String oldWord = "old" + System.nanoTime();
+        String newWord = "new" + System.nanoTime();
+        AtomicReference<ItemSearchDocument> committed = new AtomicReference<>(documentOf(itemId, oldWord));
+        CountDownLatch oldLoaded = new CountDownLatch(1);
+        CountDownLatch releaseOld = new CountDownLatch(1);
+
+        //when
+        CompletableFuture<Void> late = CompletableFuture.runAsync(() -> itemSearchIndex.refresh(itemId, () -> {
+            ItemSearchDocument document = committed.get();
+            oldLoaded.countDown();
+            try {
+                releaseOld.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return document;
+        }));
+        assertThat(oldLoaded.await(10, TimeUnit.SECONDS)).isTrue();
+        committed.set(documentOf(itemId, newWord));
+        CompletableFuture<Void> latest = CompletableFuture.runAsync(() -> itemSearchIndex.refresh(itemId, committed::get));
+        Thread.sleep(200);
+        boolean latestWaited = !latest.isDone();    // 앞의 refresh가 끝날 때까지 기다려야 한다
+        releaseOld.countDown();
+        late.get(10, TimeUnit.SECONDS);
+        latest.get(10, TimeUnit.SECONDS);
+
+        //then
+        try {
+            assertThat(latestWaited).isTrue();
+            assertThat(itemSearchIndex.search(newWord, 0, 10).getHits()).extracting(ItemSearchIndex.Hit::getItemId)
+                    .containsExactly(itemId);
+            assertThat(itemSearchIndex.search(oldWord, 0, 10).getTotal()).isZero();
+        } finally {
+            itemSearchIndex.refresh(itemId, () -> null);
+        }
+        assertThat(itemSearchIndex.search(newWord, 0, 10).getTotal()).isZero();
+    }
+
+    private ItemSearchDocument documentOf(Long itemId, String name) {
+        return new ItemSearchDocument(itemId, "B", name, 1000, null, null, null, null, null);
+    }
+}
@@ -3,15 +3,21 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.SelectOption;
+import jpabook.jpashop.repository.member.MemberField;
+import jpabook.jpashop.repository.member.MemberRow;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -22,6 +28,7 @@ public class MemberServiceTest {
 
     @Autowired private MemberRepository memberRepository;
     @Autowired private MemberService memberService;
+    @Autowired private JdbcTemplate jdbcTemplate;
 
     // 회원가입을 성공해야 한다
     @Test
@@ -57,4 +64,69 @@ public class MemberServiceTest {
         fail("예외가 발생해야 합니다.");  // 여기까지 내려오면 안된다(fail 떨굼). 54 line에서 예외 터져야 함
 
     }
+
+    // 중복 검사를 통과해도(다른 서버에서 방금 가입해서 블룸 필터에 없는 이름) 유니크 제약조건에 걸리면 같은 예외
+    @Test(expected = IllegalStateException.class)
+    public void 중복검사를_지나친_동시가입_예외() throws Exception{
+        // given : 다른 서버에서 가입한 회원 (이 서버의 블룸 필터는 모른다)
+        String name = "concurrent" + System.nanoTime();
+        jdbcTemplate.update("insert into member (member_id, name) values (?, ?)", Long.MAX_VALUE - System.nanoTime() % 1000, name);
+
+        Member member = new Member();
+        member.setName(name);
+
+        // when
+        memberService.join(member);
+
+        // then
+        fail("예외가 발생해야 합니다.");
+    }
+
+    // 이름 앞글자 자동완성 : 입력한 %, _ 는 와일드카드가 아니라 글자 그대로
+    @Test
+    public void 이름_앞글자로_회원_찾기() throws Exception{
+        // given
+        String prefix = "ta" + System.nanoTime();
+        Member percent = new Member();
+        percent.setName(prefix + "%1");
+        Member other = new Member();
+        other.setName(prefix + "x1");
+        memberService.join(percent);
+        memberService.join(other);
+
+        // when
+        List<SelectOption> all = memberService.suggestByName(prefix, 10);
+        List<SelectOption> literal = memberService.suggestByName(prefix + "%", 10);
+
+        // then
+        Assertions.assertThat(all).extracting(SelectOption::getId).containsExactly(percent.getId(), other.getId());
+        Assertions.assertThat(literal).extracting(SelectOption::getId).containsExactly(percent.getId());
+    }
+
+    // 커서 페이징 + 요청한 필드만
+    @Test
+    public void 회원목록_커서페이징_필드선택() throws Exception{
+        // given
+        String prefix = "page" + System.nanoTime();
+        Member first = new Member();
+        first.setName(prefix + "a");
+        first.setAddress(new Address("서울", "강가", "123-123"));
+        Member second = new Member();
+        second.setName(prefix + "b");
+        second.setAddress(new Address("부산", "해운대", "456-456"));
+        memberService.join(first);
+        memberService.join(second);
+
+        // when
+        List<MemberRow> page = memberService.findMemberPage(first.getId() - 1, 1, MemberField.parse("name"));
+        List<MemberRow> next = memberService.findMemberPage(page.get(0).getId(), 1, MemberField.parse("address"));
+
+        // then
+        Assertions.assertThat(page).extracting(MemberRow::getId, MemberRow::getName, MemberRow::getAddress)
+                .containsExactly(Assertions.tuple(first.getId(), first.getName(), null));
+        Assertions.assertThat(next).extracting(MemberRow::getId, MemberRow::getName)
+                .containsExactly(Assertions.tuple(second.getId(), null));
+        Assertions.assertThat(next.get(0).getAddress()).isNotNull();
+        assertEquals("부산", next.get(0).getAddress().getCity());
+    }
 }
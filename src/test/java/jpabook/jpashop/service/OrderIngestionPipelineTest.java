@@ -0,0 +1,110 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "jpashop.order-ingestion.enabled=true")
+class OrderIngestionPipelineTest {
+
+    @Autowired OrderIngestionPipeline orderIngestionPipeline;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void 재고부족_주문만_실패하고_나머지는_같이_커밋() throws Exception {
+        //given
+        int stock = 150;
+        int orderCount = 200;
+        Long memberId = createMember();
+        Long itemId = createBook(stock);
+
+        //when
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            futures.add(orderIngestionPipeline.submit(memberId, itemId, 1));
+        }
+
+        int success = 0;
+        int notEnoughStock = 0;
+        for (CompletableFuture<Long> future : futures) {
+            try {
+                assertThat(future.get(60, TimeUnit.SECONDS)).isNotNull();
+                success++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(NotEnoughStockException.class);
+                notEnoughStock++;
+            }
+        }
+
+        //then
+        assertThat(success).isEqualTo(stock);
+        assertThat(notEnoughStock).isEqualTo(orderCount - stock);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isZero();
+    }
+
+    @Test
+    void 없는_회원_주문은_따로_실패하고_같은_묶음의_주문은_성공() {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        //when : 없는 회원 주문이 묶음 트랜잭션을 롤백시키면 주문마다 다시 처리한다
+        CompletableFuture<Long> ok1 = orderIngestionPipeline.submit(memberId, itemId, 1);
+        CompletableFuture<Long> broken = orderIngestionPipeline.submit(-1L, itemId, 1);
+        CompletableFuture<Long> ok2 = orderIngestionPipeline.submit(memberId, itemId, 1);
+
+        //then
+        assertThat(ok1.join()).isNotNull();
+        assertThat(ok2.join()).isNotNull();
+        assertThatThrownBy(broken::join).hasCauseInstanceOf(RuntimeException.class);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(8);
+    }
+
+    @Test
+    void 종료된_파이프라인은_접수를_거절한다() throws Exception {
+        //given
+        OrderIngestionPipeline pipeline = new OrderIngestionPipeline(orderService, transactionManager, 10, 4, 100, 1000);
+        pipeline.start();
+        pipeline.stop();
+
+        //when, then : 기다리지 않고 바로 거절
+        assertThatThrownBy(() -> pipeline.submit(createMember(), createBook(1), 1))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> pipeline.order(createMember(), createBook(1), 1))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("ingestion-buyer-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stock) {
+        Book book = new Book();
+        book.setName("INGESTION BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,154 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드가 동시에 같은 상품(hot SKU)을 주문하는 상황
+ * 각 스레드가 자기 트랜잭션에서 커밋해야 하니 테스트 클래스에 @Transactional 붙이지 않는다
+ */
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired ItemSearchIndex itemSearchIndex;
+    @Autowired SalesRollupService salesRollupService;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    private static final int THREADS = 16;
+
+    // 테스트마다 커밋된 데이터는 같은 jdbc:h2:mem:test를 쓰는 다른 테스트에 보이니 끝나면 지운다
+    private final List<Long> createdMemberIds = new ArrayList<>();
+    private final List<Long> createdItemIds = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        salesRollupService.flush();     // outbox에 남은 판매 집계 증감까지 내려보낸 뒤에 지운다
+        for (Long memberId : createdMemberIds) {
+            List<Long> deliveryIds = jdbcTemplate.queryForList("select delivery_id from orders where member_id = ?", Long.class, memberId);
+            jdbcTemplate.update("delete from order_item where order_id in (select order_id from orders where member_id = ?)", memberId);
+            jdbcTemplate.update("delete from orders where member_id = ?", memberId);
+            deliveryIds.forEach(deliveryId -> jdbcTemplate.update("delete from delivery where delivery_id = ?", deliveryId));
+            jdbcTemplate.update("delete from member_name_trigram where member_id = ?", memberId);
+            jdbcTemplate.update("delete from member where member_id = ?", memberId);
+        }
+        for (Long itemId : createdItemIds) {
+            jdbcTemplate.update("delete from sales_daily_rollup where item_id = ?", itemId);
+            jdbcTemplate.update("delete from item where item_id = ?", itemId);
+            itemSearchIndex.remove(itemId);
+        }
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    void 동시주문_재고초과판매_없음() throws Exception {
+        //given
+        int stock = 500;
+        int orderCount = 800;   // 재고보다 주문이 많다
+        Long memberId = createMember();
+        Long itemId = createBook(stock);
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger notEnoughStock = new AtomicInteger();
+
+        //when
+        runConcurrently(orderCount, () -> {
+            try {
+                orderService.order(memberId, itemId, 1);
+                success.incrementAndGet();
+            } catch (NotEnoughStockException e) {
+                notEnoughStock.incrementAndGet();
+            }
+        });
+
+        //then
+        assertThat(success.get()).isEqualTo(stock);
+        assertThat(notEnoughStock.get()).isEqualTo(orderCount - stock);
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isZero();
+    }
+
+    @Test
+    void 장바구니_동시주문_상품이_겹쳐도_deadlock_없음() throws Exception {
+        //given
+        int skus = 5;
+        int linesPerCart = 3;
+        int cartCount = 400;
+        int stock = 10_000;
+        Long memberId = createMember();
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < skus; i++) {
+            itemIds.add(createBook(stock));
+        }
+
+        //when : 장바구니마다 상품 3개를 매번 다른 순서로 담는다
+        runConcurrently(cartCount, () -> {
+            List<Long> picked = new ArrayList<>(itemIds);
+            Collections.shuffle(picked, ThreadLocalRandom.current());
+            List<CartLine> lines = picked.subList(0, linesPerCart).stream()
+                    .map(itemId -> new CartLine(itemId, 1))
+                    .toList();
+            orderService.checkout(memberId, lines);
+        });
+
+        //then : lock 순서가 꼬였으면 runConcurrently에서 deadlock/lock timeout 예외가 터진다
+        long remaining = itemIds.stream().mapToLong(itemId -> itemService.findOne(itemId).getStockQuantity()).sum();
+        assertThat(remaining).isEqualTo((long) skus * stock - (long) cartCount * linesPerCart);
+    }
+
+    private void runConcurrently(int tasks, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);   // 예상 못한 예외(lock timeout 등)는 여기서 터진다
+        }
+        executor.shutdown();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("hot-sku-buyer-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+        createdMemberIds.add(memberId);
+        return memberId;
+    }
+
+    private Long createBook(int stock) {
+        Book book = new Book();
+        book.setName("HOT BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+        createdItemIds.add(book.getId());
+        return book.getId();
+    }
+}
@@ -7,12 +7,18 @@ import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSearchEngine;
+import jpabook.jpashop.repository.order.query.OrderListRow;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -23,6 +29,8 @@ public class OrderServiceTest {
     @Autowired EntityManager em;
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired MemberService memberService;
+    @Autowired OrderSearchEngine orderSearchEngine;
 
     @Test
     public void 상품주문()  throws Exception {
@@ -77,6 +85,253 @@ public class OrderServiceTest {
 
     }
 
+    @Test
+    public void 회원이름_부분검색() throws Exception {
+        //given : 이름 가운데에 검색어가 있는 회원, 조각(trigram)은 다 있지만 연속으로는 없는 회원
+        String suffix = String.valueOf(System.nanoTime());
+        Member hit = new Member();
+        hit.setName("a-zqwvab-" + suffix);
+        Member gramsOnly = new Member();
+        gramsOnly.setName("zqwva-wvab-" + suffix);   // zqw, qwv, wva, vab 다 있음
+        memberService.join(hit);
+        memberService.join(gramsOnly);
+        Item item = createBook("JPA", 10000, 10);
+        Long hitOrderId = orderService.order(hit.getId(), item.getId(), 1);
+        orderService.order(gramsOnly.getId(), item.getId(), 1);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("zqwvab");
+
+        //when
+        List<Order> orders = orderService.findOrders(orderSearch);
+
+        //then
+        assertEquals("이름에 검색어가 연속으로 들어있는 회원의 주문만", 1, orders.size());
+        assertEquals(hitOrderId, orders.get(0).getId());
+        assertEquals(1, orderService.countOrders(orderSearch));
+    }
+
+    @Test
+    public void 회원이름_검색어의_퍼센트_밑줄은_글자_그대로() throws Exception {
+        //given
+        String suffix = String.valueOf(System.nanoTime());
+        Member percent = new Member();
+        percent.setName("rate100%off-" + suffix);
+        Member other = new Member();
+        other.setName("rate100xoff-" + suffix);
+        memberService.join(percent);
+        memberService.join(other);
+        Item item = createBook("JPA", 10000, 10);
+        Long percentOrderId = orderService.order(percent.getId(), item.getId(), 1);
+        orderService.order(other.getId(), item.getId(), 1);
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("100%off-" + suffix);
+
+        //when
+        List<Order> orders = orderService.findOrders(orderSearch);
+
+        //then
+        assertEquals(1, orders.size());
+        assertEquals(percentOrderId, orders.get(0).getId());
+
+        //when : 3글자 미만이라 trigram 없이 like만 쓰는 경우도 같다 (상품 조건으로 이 테스트의 주문만)
+        OrderSearch shortSearch = new OrderSearch();
+        shortSearch.setMemberName("%o");
+        shortSearch.setItemId(item.getId());
+
+        //then
+        assertEquals(List.of(percentOrderId), orderService.findOrders(shortSearch).stream().map(Order::getId).toList());
+    }
+
+    @Test
+    public void 주문상태_상품_총액_조건으로_검색() throws Exception {
+        //given : 한 회원의 주문 3건 (10000원 1개, 10000원 3개 -> 취소, 25000원 2개)
+        Member member = joinMember();
+        Item cheap = createBook("JPA", 10000, 10);
+        Item expensive = createBook("JPA2", 25000, 10);
+        Long small = orderService.order(member.getId(), cheap.getId(), 1);
+        Long canceled = orderService.order(member.getId(), cheap.getId(), 3);
+        Long large = orderService.order(member.getId(), expensive.getId(), 2);
+        orderService.cancelOrder(canceled);
+
+        //then : 회원 이름으로 이 테스트의 주문만 보고, 조건을 하나씩 더한다
+        OrderSearch status = searchOf(member);
+        status.setOrderStatus(OrderStatus.CANCEL);
+        assertEquals(List.of(canceled), orderIds(status));
+
+        OrderSearch item = searchOf(member);
+        item.setItemId(cheap.getId());
+        assertEquals(List.of(canceled, small), orderIds(item));
+
+        OrderSearch min = searchOf(member);
+        min.setMinTotalPrice(30000);
+        assertEquals(List.of(large, canceled), orderIds(min));
+
+        OrderSearch max = searchOf(member);
+        max.setMaxTotalPrice(30000);
+        assertEquals(List.of(canceled, small), orderIds(max));
+
+        OrderSearch between = searchOf(member);
+        between.setMinTotalPrice(20000);
+        between.setMaxTotalPrice(40000);
+        assertEquals(List.of(canceled), orderIds(between));
+        assertEquals(1, orderService.countOrders(between));
+        assertEquals(3, orderService.countOrders(searchOf(member)));
+    }
+
+    @Test
+    public void 주문일_조건으로_검색() throws Exception {
+        //given
+        Member member = joinMember();
+        Item item = createBook("JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), item.getId(), 1);
+        LocalDate today = LocalDate.now();
+
+        //then : 시작일, 끝 날짜 모두 그날 하루 전체를 포함한다
+        OrderSearch fromToday = searchOf(member);
+        fromToday.setOrderDateFrom(today);
+        assertEquals(List.of(orderId), orderIds(fromToday));
+
+        OrderSearch toToday = searchOf(member);
+        toToday.setOrderDateTo(today);
+        assertEquals(List.of(orderId), orderIds(toToday));
+
+        OrderSearch fromTomorrow = searchOf(member);
+        fromTomorrow.setOrderDateFrom(today.plusDays(1));
+        assertTrue(orderIds(fromTomorrow).isEmpty());
+        assertEquals(0, orderService.countOrders(fromTomorrow));
+
+        OrderSearch toYesterday = searchOf(member);
+        toYesterday.setOrderDateTo(today.minusDays(1));
+        assertTrue(orderIds(toYesterday).isEmpty());
+    }
+
+    @Test
+    public void 같은_조건_조합은_등록된_쿼리를_다시_쓴다() throws Exception {
+        //given
+        Member member = joinMember();
+        Item item = createBook("JPA", 10000, 10);
+        orderService.order(member.getId(), item.getId(), 1);
+
+        OrderSearch first = searchOf(member);
+        first.setOrderStatus(OrderStatus.ORDER);
+        first.setMinTotalPrice(1);
+        orderService.findOrders(first);
+        orderService.countOrders(first);
+        int registered = orderSearchEngine.registeredQueryCount();
+
+        //when : 값만 다르고 조합은 같은 검색
+        Member another = joinMember();
+        orderService.order(another.getId(), item.getId(), 2);
+        OrderSearch second = searchOf(another);
+        second.setOrderStatus(OrderStatus.ORDER);
+        second.setMinTotalPrice(2);
+        List<Long> found = orderIds(second);
+        long count = orderService.countOrders(second);
+
+        //then
+        assertEquals(registered, orderSearchEngine.registeredQueryCount());
+        assertEquals(1, found.size());
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void 주문목록_한줄은_대표상품과_주문총액() throws Exception {
+        //given : 상품 3개를 담은 주문 (대표상품 = id가 가장 작은 주문상품)
+        Member member = joinMember();
+        Item first = createBook("FIRST", 10000, 10);
+        Item second = createBook("SECOND", 20000, 10);
+        Item third = createBook("THIRD", 5000, 10);
+        Long orderId = orderService.checkout(member.getId(), List.of(
+                new CartLine(third.getId(), 4), new CartLine(first.getId(), 2), new CartLine(second.getId(), 1)));
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderListRow> rows = orderService.findOrderListRows(searchOf(member));
+
+        //then : 주문상품 수만큼 row가 늘어나지 않고 주문당 한 줄
+        assertEquals(1, rows.size());
+        OrderListRow row = rows.get(0);
+        assertEquals(orderId, row.getOrderId());
+        assertEquals(member.getName(), row.getMemberName());
+        assertEquals("FIRST", row.getItemName());
+        assertEquals(10000, row.getOrderPrice());
+        assertEquals(2, row.getCount());
+        assertEquals(10000 * 2 + 20000 + 5000 * 4, row.getTotalPrice());
+        assertEquals(3, row.getItemCount());
+    }
+
+    @Test
+    public void 주문총액_주문상품수_저장과_총액정렬_필터() throws Exception {
+        //given : 장바구니 주문(2줄, 같은 상품 두 줄은 합쳐진다)과 단건 주문
+        Member member = joinMember();
+        Item book = createBook("JPA", 10000, 20);
+        Item album = createBook("JPA2", 3000, 20);
+        Long cartOrderId = orderService.checkout(member.getId(), List.of(
+                new CartLine(book.getId(), 1), new CartLine(album.getId(), 2), new CartLine(book.getId(), 2)));
+        Long singleOrderId = orderService.order(member.getId(), album.getId(), 1);
+        em.flush();
+        em.clear();
+
+        //then : DB에 저장된 총액, 주문상품 수
+        Order cartOrder = orderRepository.findOne(cartOrderId);
+        assertEquals(10000 * 3 + 3000 * 2, cartOrder.getTotalPrice());
+        assertEquals(2, cartOrder.getItemCount());
+        Order singleOrder = orderRepository.findOne(singleOrderId);
+        assertEquals(3000, singleOrder.getTotalPrice());
+        assertEquals(1, singleOrder.getItemCount());
+
+        //then : sort=totalPrice 면 총액 큰 순 (기본은 최신순)
+        assertEquals(List.of(singleOrderId, cartOrderId), orderIds(searchOf(member)));
+        OrderSearch byTotal = searchOf(member);
+        byTotal.setSort("totalPrice");
+        assertEquals(List.of(cartOrderId, singleOrderId), orderIds(byTotal));
+
+        //then : 총액 범위 (경계 포함)
+        OrderSearch min = searchOf(member);
+        min.setMinTotalPrice(36000);
+        assertEquals(List.of(cartOrderId), orderIds(min));
+        OrderSearch max = searchOf(member);
+        max.setMaxTotalPrice(3000);
+        assertEquals(List.of(singleOrderId), orderIds(max));
+        OrderSearch none = searchOf(member);
+        none.setMinTotalPrice(3001);
+        none.setMaxTotalPrice(35999);
+        assertTrue(orderIds(none).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 장바구니주문_없는_회원() throws Exception {
+        //given
+        Item item = createBook("JPA", 10000, 10);
+
+        //when
+        orderService.checkout(-1L, List.of(new CartLine(item.getId(), 1)));
+
+        //then
+        fail("없는 회원이면 예외가 발생해야 한다");
+    }
+
+    private Member joinMember() {
+        Member member = new Member();
+        member.setName("search-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+        return member;
+    }
+
+    private OrderSearch searchOf(Member member) {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getName());
+        return orderSearch;
+    }
+
+    private List<Long> orderIds(OrderSearch orderSearch) {
+        return orderService.findOrders(orderSearch).stream().map(Order::getId).toList();
+    }
+
     // test할 때마다 객체 초기화 코드 겹치니깐 따로 method로 빼자
     private Book createBook(String name, int price, int quantity) {
         Book book = new Book();
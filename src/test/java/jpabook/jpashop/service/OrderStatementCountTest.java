@@ -0,0 +1,113 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 주문 1건을 넣을 때 나가는 쿼리 수는 회원의 지난 주문 수와 상관없이 같아야 한다
+ * (Order.setMember가 member.orders를 로딩하면 지난 주문 전체를 읽어온다)
+ */
+@SpringBootTest
+class OrderStatementCountTest {
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void 주문_쿼리수는_회원의_주문이력과_무관() {
+        //given
+        Long itemId = createBook(10_000);
+        Long newMemberId = createMember("statementCount-newbie");
+        Long loyalMemberId = createMember("statementCount-loyal");
+        for (int i = 0; i < 200; i++) {
+            orderService.order(loyalMemberId, itemId, 1);
+        }
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        OrderStats newbie = measure(statistics, () -> orderService.order(newMemberId, itemId, 1));
+        OrderStats loyal = measure(statistics, () -> orderService.order(loyalMemberId, itemId, 1));
+
+        //then
+        assertThat(loyal.statements).isEqualTo(newbie.statements);
+        assertThat(loyal.entityLoads).isEqualTo(newbie.entityLoads);
+        assertThat(loyal.collectionFetches).isZero();
+    }
+
+    /**
+     * jdbc.batch_size(100) + pooled-lo(allocationSize 1000) : 회원 100명 insert가 statement 하나로 묶이고
+     * 시퀀스도 많아야 한 번 읽는다
+     */
+    @Test
+    void 같은_테이블_insert는_batch로_묶인다() {
+        //given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        //when : flush까지만 하고 롤백 (다른 테스트에 회원이 남지 않게)
+        long statements = new TransactionTemplate(transactionManager).execute(status -> {
+            statistics.clear();
+            for (int i = 0; i < 100; i++) {
+                Member member = new Member();
+                member.setName("statementCount-batch" + System.nanoTime() + "-" + i);
+                em.persist(member);
+            }
+            em.flush();
+            status.setRollbackOnly();
+            return statistics.getPrepareStatementCount();
+        });
+
+        //then : insert 1번 + 시퀀스 최대 1번
+        assertThat(statements).isLessThanOrEqualTo(2);
+    }
+
+    private OrderStats measure(Statistics statistics, Runnable order) {
+        emf.getCache().evictAll();  // 2차 캐시 hit 여부로 쿼리 수가 달라지지 않게
+        statistics.clear();
+        order.run();
+        return new OrderStats(statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(), statistics.getCollectionFetchCount());
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private static class OrderStats {
+        final long statements;
+        final long entityLoads;
+        final long collectionFetches;
+
+        OrderStats(long statements, long entityLoads, long collectionFetches) {
+            this.statements = statements;
+            this.entityLoads = entityLoads;
+            this.collectionFetches = collectionFetches;
+        }
+    }
+}
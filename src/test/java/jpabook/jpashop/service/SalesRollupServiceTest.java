@@ -0,0 +1,120 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.sales.SalesDailyRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SalesRollupServiceTest {
+
+    @Autowired SalesRollupService salesRollupService;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void 주문과_취소가_일별집계에_반영되고_backfill과_같다() {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10000, 100);
+        LocalDate today = LocalDate.now();
+
+        //when
+        orderService.order(memberId, itemId, 2);
+        Long canceledOrderId = orderService.order(memberId, itemId, 3);
+        orderService.cancelOrder(canceledOrderId);
+        salesRollupService.flush();
+
+        //then
+        SalesDailyRow row = single(salesRollupService.findDaily(today, today, itemId));
+        assertThat(row.getOrderedQuantity()).isEqualTo(5);
+        assertThat(row.getOrderedLines()).isEqualTo(2);
+        assertThat(row.getRevenue()).isEqualTo(50000);
+        assertThat(row.getCanceledQuantity()).isEqualTo(3);
+        assertThat(row.getNetRevenue()).isEqualTo(20000);
+        assertThat(row.getCancelRate()).isEqualTo(0.5);
+
+        //when : 주문 데이터로 다시 집계해도 같은 값
+        salesRollupService.backfill(today, today);
+
+        //then
+        SalesDailyRow rebuilt = single(salesRollupService.findDaily(today, today, itemId));
+        assertThat(rebuilt).usingRecursiveComparison().isEqualTo(row);
+    }
+
+    @Test
+    void 주문이_커밋되면_집계_증감이_outbox에_남는다() {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10000, 100);
+
+        //when : flush 전 (서버가 여기서 죽어도 증감은 DB에 있다)
+        orderService.order(memberId, itemId, 2);
+
+        //then
+        assertThat(pendingEvents(itemId)).isEqualTo(1);
+
+        //when
+        salesRollupService.flush();
+
+        //then
+        assertThat(pendingEvents(itemId)).isZero();
+        assertThat(single(salesRollupService.findDaily(LocalDate.now(), LocalDate.now(), itemId)).getOrderedQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    void backfill한_날짜의_outbox_증감은_다시_더하지_않는다() {
+        //given : 주문/취소가 outbox에만 있는 상태
+        Long memberId = createMember();
+        Long itemId = createBook(10000, 100);
+        LocalDate today = LocalDate.now();
+        orderService.order(memberId, itemId, 2);
+        orderService.cancelOrder(orderService.order(memberId, itemId, 3));
+
+        //when
+        salesRollupService.backfill(today, today);
+        salesRollupService.flush();
+
+        //then
+        SalesDailyRow row = single(salesRollupService.findDaily(today, today, itemId));
+        assertThat(row.getOrderedQuantity()).isEqualTo(5);
+        assertThat(row.getCanceledQuantity()).isEqualTo(3);
+        assertThat(pendingEvents(itemId)).isZero();
+    }
+
+    private Integer pendingEvents(Long itemId) {
+        return jdbcTemplate.queryForObject("select count(*) from sales_rollup_event where item_id = ?", Integer.class, itemId);
+    }
+
+    private SalesDailyRow single(List<SalesDailyRow> rows) {
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("sales-buyer-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int price, int stock) {
+        Book book = new Book();
+        book.setName("SALES BOOK");
+        book.setPrice(price);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
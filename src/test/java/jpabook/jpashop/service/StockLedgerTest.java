@@ -0,0 +1,199 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "jpashop.stock-ledger.enabled=true")
+class StockLedgerTest {
+
+    @Autowired StockLedger stockLedger;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    void 동시주문_장부와_DB재고가_일치한다() throws Exception {
+        //given
+        int stock = 300;
+        int orderCount = 500;
+        Long memberId = createMember();
+        Long itemId = createBook(stock);
+
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < orderCount; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    orderService.order(memberId, itemId, 1);
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    // 재고 부족은 정상
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        stockLedger.flush();
+
+        //then
+        assertThat(success.get()).isEqualTo(stock);
+        assertThat(stockLedger.available(itemId)).isZero();
+        assertThat(persistedStock(itemId)).isZero();
+    }
+
+    @Test
+    void 주문취소하면_장부에_재고가_돌아온다() {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long orderId = orderService.order(memberId, itemId, 3);
+
+        //when
+        orderService.cancelOrder(orderId);
+        stockLedger.flush();
+
+        //then
+        assertThat(stockLedger.available(itemId)).isEqualTo(10);
+        assertThat(persistedStock(itemId)).isEqualTo(10);
+    }
+
+    @Test
+    void 주문취소가_롤백되면_장부_재고도_그대로다() {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long orderId = orderService.order(memberId, itemId, 3);
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.cancelOrder(orderId);
+            assertThat(stockLedger.available(itemId)).isEqualTo(7);    // 커밋 전에는 돌려놓지 않는다
+            status.setRollbackOnly();
+        });
+        stockLedger.flush();
+
+        //then
+        assertThat(stockLedger.available(itemId)).isEqualTo(7);
+        assertThat(persistedStock(itemId)).isEqualTo(7);
+    }
+
+    @Test
+    void 없는_상품은_IllegalArgumentException() {
+        assertThatThrownBy(() -> stockLedger.available(-1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> stockLedger.reserve(-1L, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void 상품수정이_그사이_flush된_재고를_덮어쓰지_않는다() {
+        //given : 주문 3개는 장부에만 반영된 상태 (DB 10, 장부 7)
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        orderService.order(memberId, itemId, 3);
+
+        //when : 상품 수정 트랜잭션이 item(재고 10)을 읽고 커밋하기 전에 다른 스레드에서 flush (DB 7)
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.updateItem(itemId, "RENAMED LEDGER BOOK", 20000, (int) stockLedger.available(itemId));
+            CompletableFuture.runAsync(stockLedger::flush).join();
+        });
+
+        //then
+        assertThat(persistedStock(itemId)).isEqualTo(7);
+        assertThat(stockLedger.available(itemId)).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject("select name from item where item_id = ?", String.class, itemId))
+                .isEqualTo("RENAMED LEDGER BOOK");
+    }
+
+    @Test
+    void flush하면_2차캐시의_예전_재고가_지워진다() {
+        //given : 상품이 2차 캐시에 올라가 있는 상태에서 주문
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        itemService.findOne(itemId);
+        orderService.order(memberId, itemId, 3);
+
+        //when
+        stockLedger.flush();
+
+        //then
+        assertThat(emf.getCache().contains(Item.class, itemId)).isFalse();
+        assertThat(itemService.findOne(itemId).getStockQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void 재고와_주문량이_딱_맞으면_동시에_예약해도_모두_성공한다() throws Exception {
+        // 재고 100을 16칸에 나눠 담고 20명이 5개씩 동시에 예약 -> 칸마다 5개가 안되는 자투리가 생겨도 합치면 딱 맞는다
+        int threads = 20;
+        int quantity = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                StockLedger.ItemStock stock = new StockLedger.ItemStock(16, threads * quantity);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    int home = i % 16;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return stock.take(home, quantity);
+                    }));
+                }
+                start.countDown();
+
+                for (Future<Boolean> result : results) {
+                    assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+                }
+                assertThat(stock.available()).isZero();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Integer persistedStock(Long itemId) {
+        return jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId);
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("ledger-buyer-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stock) {
+        Book book = new Book();
+        book.setName("LEDGER BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(stock);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}